@@ -0,0 +1,77 @@
+package org.example.apigateway;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Проверяет JWT один раз на входе и передаёт сервисам подписанный заголовок X-Auth-Identity.
+// Невалидные токены отсекаются здесь и не доходят до сервисов.
+@Component
+public class JwtAuthenticationGlobalFilter implements GlobalFilter, Ordered {
+
+    private final JwtUtil jwtUtil;
+    private final IdentityHeader identityHeader;
+    private final List<String> protectedPrefixes;
+
+    public JwtAuthenticationGlobalFilter(JwtUtil jwtUtil, IdentityHeader identityHeader,
+                                         @Value("${gateway.auth.protected-prefixes:/api/}") List<String> protectedPrefixes) {
+        this.jwtUtil = jwtUtil;
+        this.identityHeader = identityHeader;
+        this.protectedPrefixes = protectedPrefixes;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        // Клиент не должен иметь возможности подставить свой заголовок личности
+        ServerHttpRequest.Builder forwarded = request.mutate().headers(headers -> headers.remove(IdentityHeader.NAME));
+
+        if (!isProtected(request.getPath().value())) {
+            return chain.filter(exchange.mutate().request(forwarded.build()).build());
+        }
+
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return reject(exchange);
+        }
+        VerifiedClaims claims = jwtUtil.verify(authHeader.substring(7));
+        if (claims == null || claims.getUsername() == null) {
+            return reject(exchange);
+        }
+
+        if (identityHeader.isEnabled()) {
+            String identity = identityHeader.sign(claims);
+            forwarded.headers(headers -> headers.set(IdentityHeader.NAME, identity));
+        }
+        return chain.filter(exchange.mutate().request(forwarded.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private boolean isProtected(String path) {
+        for (String prefix : protectedPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.apigateway;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+@Component
+public class JwtUtil {
+
+    private final JwtParser parser;
+    private final VerifiedClaimsCache cache;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        Key signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.cache = new VerifiedClaimsCache(cacheMaxSize);
+    }
+
+    // Разбирает и проверяет подпись один раз; null - если токен невалиден или истёк
+    public VerifiedClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String digest = digest(token);
+        VerifiedClaims cached = cache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        VerifiedClaims verified = new VerifiedClaims(claims.getSubject(), extractRoles(claims),
+                expiration == null ? null : expiration.toInstant());
+        cache.put(digest, verified);
+        return verified;
+    }
+
+    private static Set<String> extractRoles(Claims claims) {
+        Object raw = claims.get("roles");
+        if (!(raw instanceof Collection<?> values)) {
+            return Set.of();
+        }
+        Set<String> roles = new HashSet<>();
+        for (Object value : values) {
+            roles.add(String.valueOf(value));
+        }
+        return roles;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
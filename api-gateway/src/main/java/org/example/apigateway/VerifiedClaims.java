@@ -0,0 +1,24 @@
+package org.example.apigateway;
+
+import java.time.Instant;
+import java.util.Set;
+
+public class VerifiedClaims {
+    private final String username;
+    private final Set<String> roles;
+    private final Instant expiresAt;
+
+    public VerifiedClaims(String username, Set<String> roles, Instant expiresAt) {
+        this.username = username;
+        this.roles = roles == null ? Set.of() : Set.copyOf(roles);
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUsername() { return username; }
+    public Set<String> getRoles() { return roles; }
+    public Instant getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.apigateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityHeaderTests {
+
+    private final IdentityHeader identityHeader = new IdentityHeader("test-identity-secret");
+
+    @Test
+    void signedHeaderRoundTrips() {
+        VerifiedClaims claims = new VerifiedClaims("athlete", Set.of("USER", "COACH"), Instant.now().plusSeconds(60));
+
+        VerifiedClaims decoded = identityHeader.verify(identityHeader.sign(claims));
+
+        assertNotNull(decoded);
+        assertEquals("athlete", decoded.getUsername());
+        assertEquals(Set.of("USER", "COACH"), decoded.getRoles());
+    }
+
+    @Test
+    void rejectsForgedOrExpiredHeaders() {
+        VerifiedClaims claims = new VerifiedClaims("athlete", Set.of("USER"), Instant.now().plusSeconds(60));
+        String header = identityHeader.sign(claims);
+
+        assertNull(new IdentityHeader("another-secret").verify(header));
+        assertNull(identityHeader.verify("YWRtaW4." + header.substring(header.indexOf('.') + 1)));
+        assertNull(identityHeader.verify(identityHeader.sign(
+                new VerifiedClaims("athlete", Set.of("USER"), Instant.now().minusSeconds(1)))));
+        assertNull(new IdentityHeader("").verify(header));
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.authservice.Controllers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.authservice.Entity.Role;
+import org.example.authservice.Entity.User;
+import org.example.authservice.Repository.RoleRepository;
+import org.example.authservice.Repository.UserRepository;
+import org.example.authservice.Security.JwtUtil;
+import org.example.authservice.Security.LoginRateLimiter;
+import org.example.authservice.Security.PasswordHashingExecutor;
+import org.example.authservice.Service.RoleDictionary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Поток логинов насыщает сервис, параллельно идут запросы ролей. Оба вызывают настоящие методы AuthController
+// (DaoAuthenticationProvider + bcrypt, JwtUtil, RoleDictionary) поверх репозиториев-заглушек в памяти,
+// так что измеряется конкуренция за CPU, без сети и БД.
+// inline: authenticate в потоке запроса (как было), bounded: signIn через PasswordHashingExecutor.
+// Смотреть на время *RolesLookup в обеих группах. Запуск: gradle jmh
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class LoginSaturationBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private AuthController controller;
+    private Method authenticate;
+    private PasswordHashingExecutor hashingExecutor;
+    private HttpServletRequest httpRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        String passwordHash = encoder.encode("password");
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName("USER");
+        Map<String, User> users = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setPassword(passwordHash);
+            user.getRoles().add(userRole);
+            users.put(user.getUsername(), user);
+        }
+
+        UserRepository userRepository = stub(UserRepository.class, (name, args) -> switch (name) {
+            case "findByUsername" -> Optional.ofNullable(users.get((String) args[0]));
+            case "existsByUsername" -> users.containsKey((String) args[0]);
+            case "findRoleNamesByUsername" -> users.containsKey((String) args[0]) ? List.of("USER") : List.of();
+            default -> throw new UnsupportedOperationException(name);
+        });
+        RoleRepository roleRepository = stub(RoleRepository.class, (name, args) -> switch (name) {
+            case "findAll" -> List.of(userRole);
+            case "findByName" -> Optional.empty();
+            default -> throw new UnsupportedOperationException(name);
+        });
+
+        // Тот же провайдер, что в SecurityConfig, без отладочного вывода на каждую попытку
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsService(username -> userRepository.findByUsername(username)
+                .map(user -> org.springframework.security.core.userdetails.User
+                        .withUsername(user.getUsername())
+                        .password(user.getPassword())
+                        .roles(user.getRoles().stream().map(Role::getName).toArray(String[]::new))
+                        .build())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username)));
+
+        JwtUtil jwtUtil = new JwtUtil();
+        inject(jwtUtil, "secret", "benchmarkkey12345678901234567890123456789012345678901234567890123456");
+        inject(jwtUtil, "expirationTime", 86_400_000L);
+        jwtUtil.init();
+
+        RoleDictionary roleDictionary = new RoleDictionary(roleRepository);
+        roleDictionary.load();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hashingExecutor = new PasswordHashingExecutor(meterRegistry, 0, 64, 1);
+
+        controller = new AuthController();
+        inject(controller, "userRepository", userRepository);
+        inject(controller, "roleDictionary", roleDictionary);
+        inject(controller, "authenticationManager", new ProviderManager(provider));
+        inject(controller, "jwtUtil", jwtUtil);
+        inject(controller, "hashingExecutor", hashingExecutor);
+        // Лимиты выключены: измеряется насыщение, а не 429
+        inject(controller, "rateLimiter", new LoginRateLimiter(meterRegistry, 0, 0, USERS, 0, 0, USERS));
+        inject(controller, "trustedProxies", Set.of());
+        authenticate = AuthController.class.getDeclaredMethod("authenticate", SignInRequest.class);
+        authenticate.setAccessible(true);
+
+        httpRequest = stub(HttpServletRequest.class, (name, args) -> switch (name) {
+            case "getHeader" -> null;
+            case "getRemoteAddr" -> "10.0.0.1";
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Benchmark
+    @Group("inline")
+    @GroupThreads(16)
+    public Object inlineLogin() throws Exception {
+        return authenticate.invoke(controller, signIn());
+    }
+
+    @Benchmark
+    @Group("inline")
+    @GroupThreads(2)
+    public ResponseEntity<?> inlineRolesLookup() {
+        return controller.getRolesByUsername(randomUser());
+    }
+
+    @Benchmark
+    @Group("bounded")
+    @GroupThreads(16)
+    public ResponseEntity<?> boundedLogin() {
+        // 503 при переполненной очереди - тоже результат: поток запроса освобождается сразу
+        return controller.signIn(signIn(), httpRequest).join();
+    }
+
+    @Benchmark
+    @Group("bounded")
+    @GroupThreads(2)
+    public ResponseEntity<?> boundedRolesLookup() {
+        return controller.getRolesByUsername(randomUser());
+    }
+
+    private static SignInRequest signIn() {
+        SignInRequest request = new SignInRequest();
+        request.setUsername(randomUser());
+        request.setPassword("password");
+        return request;
+    }
+
+    private static String randomUser() {
+        return "user" + (System.nanoTime() & 8191);
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "toString" -> type.getSimpleName() + " stub";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.handle(method.getName(), args);
+                });
+    }
+
+    private static void inject(Object target, String field, Object value) throws ReflectiveOperationException {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
@@ -1,22 +1,40 @@
 package org.example.authservice.Controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.example.authservice.Entity.Role;
-import org.example.authservice.Entity.User;
-import org.example.authservice.Repository.RoleRepository;
 import org.example.authservice.Repository.UserRepository;
+import org.example.authservice.Repository.UserRoleName;
 import org.example.authservice.Security.JwtUtil;
+import org.example.authservice.Security.LoginRateLimiter;
+import org.example.authservice.Security.PasswordHashingExecutor;
+import org.example.authservice.Service.RegisteredIdentities;
+import org.example.authservice.Service.RegistrationService;
+import org.example.authservice.Service.RoleDictionary;
 import org.example.authservice.Service.UserRequest;
-import org.example.authservice.Service.UserServiceClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
@@ -25,7 +43,7 @@ public class AuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleDictionary roleDictionary;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -34,63 +52,95 @@ public class AuthController {
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private UserServiceClient userServiceClient;
+    private RegistrationService registrationService;
+
+    @Autowired
+    private RegisteredIdentities registeredIdentities;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    @PostMapping("/signup")
-    public ResponseEntity<String> signUp(@RequestBody SignUpRequest signUpRequest) {
-        if (userRepository.existsByUsername(signUpRequest.getUsername())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Username already exists");
-        }
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already exists");
-        }
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
 
-        User user = new User();
-        user.setUsername(signUpRequest.getUsername());
-        user.setEmail(signUpRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(signUpRequest.getPassword()));
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
-        // --- Главное исправление тут ---
-        Role userRole = roleRepository.findByName("USER")
-                .orElseGet(() -> {
-                    Role newRole = new Role();
-                    newRole.setName("USER");
-                    return roleRepository.save(newRole);
-                });
+    @Autowired
+    private LoginRateLimiter rateLimiter;
 
-        user.getRoles().add(userRole);
+    @Value("${auth.roles.batch.max-size:500}")
+    private int rolesBatchMaxSize;
 
-        userRepository.save(user);
+    // Адреса api-gateway; X-Forwarded-For от остальных клиентов игнорируется, иначе каждый запрос мог бы
+    // подставить новый адрес и получить новую корзину лимита
+    @Value("${auth.rate-limit.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}")
+    private Set<String> trustedProxies;
 
-        UserRequest request = new UserRequest();
-        request.setUsername(user.getUsername());
-        request.setEmail(user.getEmail());
-        request.setFirstName(signUpRequest.getFirstName());
-        request.setLastName(signUpRequest.getLastName());
+    @PostMapping("/signup")
+    public CompletableFuture<ResponseEntity<String>> signUp(@RequestBody SignUpRequest signUpRequest, HttpServletRequest httpRequest) {
+        long retryAfter = rateLimiter.tryAcquire(LoginRateLimiter.KeyType.IP, clientIp(httpRequest));
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(tooManyAttempts(retryAfter));
+        }
+        RegisteredIdentities.Conflict conflict = registeredIdentities.check(signUpRequest.getUsername(), signUpRequest.getEmail());
+        if (conflict == RegisteredIdentities.Conflict.USERNAME) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Username already exists"));
+        }
+        if (conflict == RegisteredIdentities.Conflict.EMAIL) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already exists"));
+        }
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        try {
+            // bcrypt - на пуле хэширования, сохранение - уже вне его
+            return hashingExecutor.submit(() -> passwordEncoder.encode(signUpRequest.getPassword()))
+                    .thenApplyAsync(passwordHash -> completeSignUp(signUpRequest, passwordHash), taskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(overloaded());
+        }
+    }
 
+    private ResponseEntity<String> completeSignUp(SignUpRequest signUpRequest, String passwordHash) {
+        UserRequest profile = new UserRequest(signUpRequest.getUsername(), signUpRequest.getEmail(),
+                signUpRequest.getFirstName(), signUpRequest.getLastName());
         try {
-            userServiceClient.createUser(request, "Bearer " + token);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("User created in AuthService, but failed in UserService: " + e.getMessage());
+            registrationService.register(profile, passwordHash);
+        } catch (DataIntegrityViolationException e) {
+            // Имя или email занят через другой экземпляр, фильтр этого экземпляра о нём ещё не знает
+            registeredIdentities.add(signUpRequest.getUsername(), signUpRequest.getEmail());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(userRepository.existsByUsername(signUpRequest.getUsername())
+                    ? "Username already exists" : "Email already exists");
         }
         return ResponseEntity.ok("User registered successfully");
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<?> signIn(@RequestBody SignInRequest signInRequest) {
+    public CompletableFuture<ResponseEntity<?>> signIn(@RequestBody SignInRequest signInRequest, HttpServletRequest httpRequest) {
+        long retryAfter = rateLimiter.tryAcquire(LoginRateLimiter.KeyType.IP, clientIp(httpRequest));
+        if (retryAfter == 0) {
+            retryAfter = rateLimiter.tryAcquire(LoginRateLimiter.KeyType.USERNAME, signInRequest.getUsername());
+        }
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(tooManyAttempts(retryAfter));
+        }
+        try {
+            return hashingExecutor.submit(() -> authenticate(signInRequest));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(overloaded());
+        }
+    }
+
+    private ResponseEntity<?> authenticate(SignInRequest signInRequest) {
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(signInRequest.getUsername(), signInRequest.getPassword())
             );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtil.generateToken(authentication.getName());
+            List<String> roles = authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .map(authority -> authority.startsWith("ROLE_") ? authority.substring(5) : authority)
+                    .toList();
+            String jwt = jwtUtil.generateToken(authentication.getName(), roles);
             return ResponseEntity.ok(new LoginResponse(jwt, "Login successful"));
         } catch (Exception e) {
             e.printStackTrace();
@@ -98,11 +148,69 @@ public class AuthController {
         }
     }
 
+    private <T> ResponseEntity<T> tooManyAttempts(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
+
+    // За api-gateway реальный адрес клиента - последний элемент X-Forwarded-For (его дописывает шлюз);
+    // заголовку верим, только если запрос пришёл с адреса из auth.rate-limit.trusted-proxies.
+    // Адрес самого шлюза клиентом не считается: null - лимит по IP не применяется, остаётся лимит по username
+    private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded == null || forwarded.isBlank()) {
+            return null;
+        }
+        return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+    }
+
+    private <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(hashingExecutor.getRetryAfterSeconds()))
+                .build();
+    }
+
     @GetMapping("/roles/{username}")
     public ResponseEntity<?> getRolesByUsername(@PathVariable String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(user.getRoles());
+        List<String> names = userRepository.findRoleNamesByUsername(username);
+        if (names.isEmpty() && !userRepository.existsByUsername(username)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        }
+        return ResponseEntity.ok(toRoles(names));
+    }
+
+    @PostMapping("/roles/batch")
+    public ResponseEntity<?> getRolesByUsernames(@RequestBody RolesBatchRequest request) {
+        List<String> usernames = request.getUsernames();
+        if (usernames == null || usernames.isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        if (usernames.size() > rolesBatchMaxSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Too many usernames, max " + rolesBatchMaxSize);
+        }
+        Map<String, List<String>> namesByUser = new HashMap<>();
+        for (UserRoleName row : userRepository.findRoleNamesByUsernameIn(new HashSet<>(usernames))) {
+            namesByUser.computeIfAbsent(row.getUsername(), k -> new ArrayList<>()).add(row.getRoleName());
+        }
+        Map<String, List<Role>> result = new HashMap<>();
+        namesByUser.forEach((username, names) -> result.put(username, toRoles(names)));
+        return ResponseEntity.ok(result);
+    }
+
+    private List<Role> toRoles(List<String> names) {
+        List<Role> roles = new ArrayList<>(names.size());
+        for (String name : names) {
+            Role role = roleDictionary.get(name);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return roles;
     }
 }
 
@@ -127,6 +235,13 @@ class SignUpRequest {
     public void setLastName(String lastName) { this.lastName = lastName; }
 }
 
+class RolesBatchRequest {
+    private List<String> usernames;
+
+    public List<String> getUsernames() { return usernames; }
+    public void setUsernames(List<String> usernames) { this.usernames = usernames; }
+}
+
 class SignInRequest {
     private String username;
     private String password;
@@ -0,0 +1,46 @@
+package org.example.authservice.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Запись о пользователе, которого ещё нужно создать в user-service.
+// Пишется в одной транзакции с User и удаляется релеем после доставки.
+// failedAt - доставка невозможна (CONFLICT: email занят другим пользователем), запись больше не повторяется
+// и ждёт ручного разбора.
+@Entity
+@Data
+@Table(name = "provisioning_outbox", indexes = @Index(name = "idx_provisioning_outbox_next_attempt", columnList = "nextAttemptAt, id"))
+public class ProvisioningOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column
+    private String firstName;
+
+    @Column
+    private String lastName;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column
+    private Instant failedAt;
+}
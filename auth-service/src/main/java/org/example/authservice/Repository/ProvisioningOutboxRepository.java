@@ -0,0 +1,19 @@
+package org.example.authservice.Repository;
+
+import org.example.authservice.Entity.ProvisioningOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProvisioningOutboxRepository extends JpaRepository<ProvisioningOutbox, Long> {
+
+    // SKIP LOCKED - несколько экземпляров auth-service могут разбирать outbox параллельно
+    @Query(value = "select * from provisioning_outbox where next_attempt_at <= :now and failed_at is null "
+            + "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<ProvisioningOutbox> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    long countByFailedAtIsNotNull();
+}
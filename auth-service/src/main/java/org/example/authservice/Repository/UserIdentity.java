@@ -0,0 +1,6 @@
+package org.example.authservice.Repository;
+
+public interface UserIdentity {
+    String getUsername();
+    String getEmail();
+}
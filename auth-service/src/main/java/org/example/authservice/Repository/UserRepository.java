@@ -2,11 +2,37 @@ package org.example.authservice.Repository;
 
 import org.example.authservice.Entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Только имена ролей - без загрузки пользователя, хэша пароля и EAGER-коллекции
+    @Query("select r.name from User u join u.roles r where u.username = :username")
+    List<String> findRoleNamesByUsername(@Param("username") String username);
+
+    @Query("select u.username as username, r.name as roleName from User u join u.roles r where u.username in :usernames")
+    List<UserRoleName> findRoleNamesByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // Одна проверка занятости имени и email вместо двух exists-запросов
+    @Query("select u.username as username, u.email as email from User u where u.username = :username or u.email = :email")
+    List<UserIdentity> findIdentities(@Param("username") String username, @Param("email") String email);
+
+    // Только имя и email - для построения bloom filter без загрузки сущностей
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u.username as username, u.email as email from User u")
+    Stream<UserIdentity> streamIdentities();
 }
@@ -0,0 +1,6 @@
+package org.example.authservice.Repository;
+
+public interface UserRoleName {
+    String getUsername();
+    String getRoleName();
+}
@@ -10,7 +10,9 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 @Component
 public class JwtUtil {
@@ -30,8 +32,14 @@ public class JwtUtil {
     }
 
     public String generateToken(String username) {
+        return generateToken(username, List.of());
+    }
+
+    // Роли кладём в токен, чтобы сервисам не нужно было ходить за ними в /auth/roles на каждый запрос
+    public String generateToken(String username, Collection<String> roles) {
         return Jwts.builder()
                 .setSubject(username)
+                .claim("roles", List.copyOf(roles))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
                 .signWith(secretKey, SignatureAlgorithm.HS512)
@@ -0,0 +1,144 @@
+package org.example.authservice.Security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ограничитель попыток входа по username и по IP клиента. Срабатывает до AuthenticationManager,
+// поэтому отклонённая попытка не стоит ни bcrypt, ни запроса в БД.
+@Component
+public class LoginRateLimiter {
+
+    public enum KeyType { USERNAME, IP }
+
+    private final Limiter usernameLimiter;
+    private final Limiter ipLimiter;
+
+    public LoginRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${auth.rate-limit.username.capacity:10}") int usernameCapacity,
+                            @Value("${auth.rate-limit.username.refill-per-minute:5}") int usernameRefillPerMinute,
+                            @Value("${auth.rate-limit.username.max-keys:100000}") int usernameMaxKeys,
+                            @Value("${auth.rate-limit.ip.capacity:30}") int ipCapacity,
+                            @Value("${auth.rate-limit.ip.refill-per-minute:30}") int ipRefillPerMinute,
+                            @Value("${auth.rate-limit.ip.max-keys:100000}") int ipMaxKeys) {
+        this.usernameLimiter = new Limiter(KeyType.USERNAME, usernameCapacity, usernameRefillPerMinute, usernameMaxKeys, meterRegistry);
+        this.ipLimiter = new Limiter(KeyType.IP, ipCapacity, ipRefillPerMinute, ipMaxKeys, meterRegistry);
+    }
+
+    // 0 - попытка разрешена, иначе через сколько секунд можно повторить
+    public long tryAcquire(KeyType type, String key) {
+        if (key == null || key.isEmpty()) {
+            return 0;
+        }
+        Limiter limiter = type == KeyType.USERNAME ? usernameLimiter : ipLimiter;
+        long waitNanos = limiter.tryAcquire(type == KeyType.USERNAME ? key.toLowerCase(Locale.ROOT) : key);
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    int trackedKeys(KeyType type) {
+        return (type == KeyType.USERNAME ? usernameLimiter : ipLimiter).size();
+    }
+
+    // Token bucket в форме GCRA: состояние ключа - одно AtomicLong (theoretical arrival time),
+    // обновляется CAS без блокировок. Ключи разложены по полосам, у каждой свой лимит и своя чистка.
+    static final class Limiter {
+
+        private static final int STRIPES = 16;
+
+        private final boolean enabled;
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final int maxKeysPerStripe;
+        private final Stripe[] stripes = new Stripe[STRIPES];
+        private final Counter allowed;
+        private final Counter rejected;
+        private final Counter evicted;
+
+        Limiter(KeyType type, int capacity, int refillPerMinute, int maxKeys, MeterRegistry meterRegistry) {
+            this.enabled = capacity > 0 && refillPerMinute > 0;
+            this.emissionIntervalNanos = enabled ? TimeUnit.MINUTES.toNanos(1) / refillPerMinute : 0;
+            this.burstToleranceNanos = enabled ? emissionIntervalNanos * (capacity - 1) : 0;
+            this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+            String tag = type.name().toLowerCase(Locale.ROOT);
+            this.allowed = meterRegistry.counter("auth.login.ratelimit.allowed", "key", tag);
+            this.rejected = meterRegistry.counter("auth.login.ratelimit.rejected", "key", tag);
+            this.evicted = meterRegistry.counter("auth.login.ratelimit.evicted", "key", tag);
+            meterRegistry.gauge("auth.login.ratelimit.keys", Tags.of("key", tag), this, Limiter::size);
+        }
+
+        long tryAcquire(String key) {
+            if (!enabled) {
+                return 0;
+            }
+            Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+            long now = System.nanoTime();
+            AtomicLong tat = stripe.buckets.get(key);
+            if (tat == null) {
+                if (stripe.buckets.size() >= maxKeysPerStripe) {
+                    stripe.sweep(now, maxKeysPerStripe, evicted);
+                }
+                tat = stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + emissionIntervalNanos;
+                long wait = next - now - burstToleranceNanos - emissionIntervalNanos;
+                if (wait > 0) {
+                    rejected.increment();
+                    return wait;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                size += stripe.buckets.size();
+            }
+            return size;
+        }
+    }
+
+    private static final class Stripe {
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+
+        // Ключ с TAT в прошлом простаивает и его ведро полное - удаление ничего не меняет.
+        // Если и после этого места нет, сбрасываем произвольные ключи: это только ослабляет лимит.
+        void sweep(long now, int maxKeys, Counter evicted) {
+            if (!sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                int toDrop = buckets.size() - maxKeys + Math.max(1, maxKeys / 10);
+                Iterator<AtomicLong> it = buckets.values().iterator();
+                while (it.hasNext()) {
+                    AtomicLong tat = it.next();
+                    if (tat.get() - now <= 0 || toDrop > 0) {
+                        it.remove();
+                        evicted.increment();
+                        toDrop--;
+                    }
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+}
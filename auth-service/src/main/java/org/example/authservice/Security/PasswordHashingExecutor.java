@@ -0,0 +1,70 @@
+package org.example.authservice.Security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Отдельный ограниченный пул под bcrypt, чтобы волна логинов не занимала потоки Tomcat
+// и не отнимала CPU у остальных эндпоинтов. При заполненной очереди задача отклоняется сразу.
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer taskTimer;
+    private final Counter rejected;
+    private final long retryAfterSeconds;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${auth.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        // Время задачи пула целиком: при входе это и чтение пользователя из БД, не только bcrypt
+        this.taskTimer = Timer.builder("auth.password.hash.task.duration")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("auth.password.hash.rejected");
+        meterRegistry.gauge("auth.password.hash.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    // Бросает RejectedExecutionException, если пул и очередь заполнены
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> taskTimer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
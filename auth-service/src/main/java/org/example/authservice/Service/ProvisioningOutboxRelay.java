@@ -0,0 +1,98 @@
+package org.example.authservice.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.authservice.Entity.ProvisioningOutbox;
+import org.example.authservice.Repository.ProvisioningOutboxRepository;
+import org.example.authservice.Security.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Доставляет записи provisioning_outbox в user-service пачками, с повторами и экспоненциальной задержкой.
+// CONFLICT не исправится повтором: такие записи помечаются failedAt и считаются в auth.provisioning.failed
+@Component
+public class ProvisioningOutboxRelay {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final ProvisioningOutboxRepository outboxRepository;
+    private final UserServiceClient userServiceClient;
+    private final JwtUtil jwtUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ProvisioningOutboxRelay(ProvisioningOutboxRepository outboxRepository, UserServiceClient userServiceClient,
+                                   JwtUtil jwtUtil, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                                   @Value("${auth.provisioning.batch-size:100}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.userServiceClient = userServiceClient;
+        this.jwtUtil = jwtUtil;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        meterRegistry.gauge("auth.provisioning.failed", outboxRepository, ProvisioningOutboxRepository::countByFailedAtIsNotNull);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.provisioning.relay-interval-ms:1000}")
+    public void relay() {
+        Integer delivered;
+        do {
+            delivered = transactionTemplate.execute(status -> relayBatch());
+        } while (delivered != null && delivered == batchSize);
+    }
+
+    private int relayBatch() {
+        List<ProvisioningOutbox> batch = outboxRepository.lockDueBatch(Instant.now(), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<UserRequest> requests = batch.stream()
+                .map(o -> new UserRequest(o.getUsername(), o.getEmail(), o.getFirstName(), o.getLastName()))
+                .toList();
+        Map<String, String> statuses = new HashMap<>();
+        String error = null;
+        try {
+            String token = jwtUtil.generateToken("auth-service", List.of("SERVICE"));
+            for (ProvisioningResult result : userServiceClient.provisionUsers(requests, "Bearer " + token)) {
+                statuses.put(result.getUsername(), result.getStatus());
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+            System.err.println("[ERROR] Provisioning batch failed: " + error);
+        }
+
+        int delivered = 0;
+        Instant now = Instant.now();
+        for (ProvisioningOutbox record : batch) {
+            String status = statuses.get(record.getUsername());
+            if ("CREATED".equals(status) || "EXISTS".equals(status)) {
+                outboxRepository.delete(record);
+                delivered++;
+            } else if ("CONFLICT".equals(status)) {
+                record.setAttempts(record.getAttempts() + 1);
+                record.setFailedAt(now);
+                record.setLastError("Email " + record.getEmail() + " belongs to another user in user-service");
+                System.err.println("[ERROR] Provisioning of " + record.getUsername() + " failed permanently: email conflict");
+            } else {
+                int attempts = record.getAttempts() + 1;
+                record.setAttempts(attempts);
+                record.setNextAttemptAt(now.plus(backoff(attempts)));
+                String reason = error != null ? error : "user-service returned " + status;
+                record.setLastError(reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+            }
+        }
+        return delivered;
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
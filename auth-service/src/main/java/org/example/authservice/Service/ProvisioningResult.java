@@ -0,0 +1,11 @@
+package org.example.authservice.Service;
+
+public class ProvisioningResult {
+    private String username;
+    private String status;
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,51 @@
+package org.example.authservice.Service;
+
+import org.example.authservice.Entity.ProvisioningOutbox;
+import org.example.authservice.Entity.User;
+import org.example.authservice.Repository.ProvisioningOutboxRepository;
+import org.example.authservice.Repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+public class RegistrationService {
+
+    private final UserRepository userRepository;
+    private final ProvisioningOutboxRepository outboxRepository;
+    private final RoleDictionary roleDictionary;
+    private final RegisteredIdentities registeredIdentities;
+
+    public RegistrationService(UserRepository userRepository, ProvisioningOutboxRepository outboxRepository,
+                               RoleDictionary roleDictionary, RegisteredIdentities registeredIdentities) {
+        this.userRepository = userRepository;
+        this.outboxRepository = outboxRepository;
+        this.roleDictionary = roleDictionary;
+        this.registeredIdentities = registeredIdentities;
+    }
+
+    // Пользователь и запись outbox коммитятся вместе; user-service получит её через ProvisioningOutboxRelay
+    @Transactional
+    public User register(UserRequest profile, String passwordHash) {
+        User user = new User();
+        user.setUsername(profile.getUsername());
+        user.setEmail(profile.getEmail());
+        user.setPassword(passwordHash);
+        user.getRoles().add(roleDictionary.getOrCreate("USER"));
+        userRepository.save(user);
+        // Если транзакция откатится, лишние биты дадут только ложное срабатывание и запрос в БД
+        registeredIdentities.add(user.getUsername(), user.getEmail());
+
+        Instant now = Instant.now();
+        ProvisioningOutbox outbox = new ProvisioningOutbox();
+        outbox.setUsername(profile.getUsername());
+        outbox.setEmail(profile.getEmail());
+        outbox.setFirstName(profile.getFirstName());
+        outbox.setLastName(profile.getLastName());
+        outbox.setCreatedAt(now);
+        outbox.setNextAttemptAt(now);
+        outboxRepository.save(outbox);
+        return user;
+    }
+}
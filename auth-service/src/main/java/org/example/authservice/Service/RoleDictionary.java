@@ -0,0 +1,51 @@
+package org.example.authservice.Service;
+
+import org.example.authservice.Entity.Role;
+import org.example.authservice.Repository.RoleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Таблица roles маленькая и почти не меняется - держим её целиком в памяти
+@Component
+public class RoleDictionary {
+
+    private final RoleRepository roleRepository;
+    private final ConcurrentHashMap<String, Role> rolesByName = new ConcurrentHashMap<>();
+
+    public RoleDictionary(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Role role : roleRepository.findAll()) {
+            rolesByName.put(role.getName(), role);
+        }
+        System.out.println("[DEBUG] Loaded " + rolesByName.size() + " roles");
+    }
+
+    public Role get(String name) {
+        Role role = rolesByName.get(name);
+        if (role == null) {
+            role = roleRepository.findByName(name).orElse(null);
+            if (role != null) {
+                rolesByName.put(name, role);
+            }
+        }
+        return role;
+    }
+
+    public synchronized Role getOrCreate(String name) {
+        Role role = get(name);
+        if (role == null) {
+            Role newRole = new Role();
+            newRole.setName(name);
+            role = roleRepository.save(newRole);
+            rolesByName.put(name, role);
+        }
+        return role;
+    }
+}
@@ -1,14 +1,16 @@
 package org.example.authservice.Service;
 
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
-@FeignClient(name = "api-gateway")
+import java.util.List;
+
+@FeignClient(name = "user-service")
 public interface UserServiceClient {
-    @PostMapping("/api/users")
-    ResponseEntity<String> createUser(@RequestBody UserRequest userRequest,
-                                      @RequestHeader("Authorization") String token);
+    // Идемпотентно: уже существующий username возвращается со статусом EXISTS
+    @PostMapping("/api/users/provision")
+    List<ProvisioningResult> provisionUsers(@RequestBody List<UserRequest> users,
+                                            @RequestHeader("Authorization") String token);
 }
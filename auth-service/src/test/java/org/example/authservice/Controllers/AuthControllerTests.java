@@ -0,0 +1,100 @@
+package org.example.authservice.Controllers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.authservice.Security.JwtUtil;
+import org.example.authservice.Security.LoginRateLimiter;
+import org.example.authservice.Security.PasswordHashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthControllerTests {
+
+    private static final String GATEWAY = "127.0.0.1";
+
+    private AuthController controller;
+    private PasswordHashingExecutor hashingExecutor;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hashingExecutor = new PasswordHashingExecutor(meterRegistry, 1, 16, 1);
+
+        JwtUtil jwtUtil = new JwtUtil();
+        inject(jwtUtil, "secret", "testkey1234567890123456789012345678901234567890123456789012345678");
+        inject(jwtUtil, "expirationTime", 86_400_000L);
+        jwtUtil.init();
+
+        // Проверка пароля не нужна: проверяется только лимит перед ней
+        AuthenticationManager authenticationManager = authentication ->
+                UsernamePasswordAuthenticationToken.authenticated(authentication.getName(), null, List.of());
+
+        controller = new AuthController();
+        inject(controller, "authenticationManager", authenticationManager);
+        inject(controller, "jwtUtil", jwtUtil);
+        inject(controller, "hashingExecutor", hashingExecutor);
+        // 2 попытки на IP, 3 на username, без пополнения за время теста
+        inject(controller, "rateLimiter", new LoginRateLimiter(meterRegistry, 3, 1, 1000, 2, 1, 1000));
+        inject(controller, "trustedProxies", Set.of(GATEWAY));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Test
+    void clientsBehindTheGatewayHaveSeparateIpLimits() {
+        assertEquals(HttpStatus.OK, signIn("alice", GATEWAY, "203.0.113.5"));
+        assertEquals(HttpStatus.OK, signIn("bob", GATEWAY, "203.0.113.5"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("carol", GATEWAY, "203.0.113.5"));
+
+        assertEquals(HttpStatus.OK, signIn("dave", GATEWAY, "198.51.100.7"));
+        assertEquals(HttpStatus.OK, signIn("erin", GATEWAY, "10.0.0.1, 198.51.100.7"));
+    }
+
+    @Test
+    void gatewayRequestWithoutForwardedForIsLimitedOnlyByUsername() {
+        for (String username : List.of("alice", "bob", "carol", "dave")) {
+            assertEquals(HttpStatus.OK, signIn(username, GATEWAY, null));
+        }
+        assertEquals(HttpStatus.OK, signIn("alice", GATEWAY, null));
+        assertEquals(HttpStatus.OK, signIn("alice", GATEWAY, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("alice", GATEWAY, null));
+    }
+
+    @Test
+    void forwardedForFromUntrustedAddressIsIgnored() {
+        assertEquals(HttpStatus.OK, signIn("alice", "192.0.2.10", "203.0.113.1"));
+        assertEquals(HttpStatus.OK, signIn("bob", "192.0.2.10", "203.0.113.2"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("carol", "192.0.2.10", "203.0.113.3"));
+    }
+
+    private HttpStatus signIn(String username, String remoteAddr, String forwardedFor) {
+        SignInRequest request = new SignInRequest();
+        request.setUsername(username);
+        request.setPassword("password");
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest("POST", "/auth/signin");
+        httpRequest.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            httpRequest.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return HttpStatus.valueOf(controller.signIn(request, httpRequest).join().getStatusCode().value());
+    }
+
+    private static void inject(Object target, String field, Object value) throws ReflectiveOperationException {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
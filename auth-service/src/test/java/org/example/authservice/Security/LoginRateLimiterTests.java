@@ -0,0 +1,35 @@
+package org.example.authservice.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTests {
+
+    @Test
+    void rejectsAttemptsBeyondBurstPerKey() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoginRateLimiter limiter = new LoginRateLimiter(registry, 3, 1, 1000, 100, 100, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(LoginRateLimiter.KeyType.USERNAME, "Athlete"));
+        }
+        long retryAfter = limiter.tryAcquire(LoginRateLimiter.KeyType.USERNAME, "athlete");
+        assertTrue(retryAfter > 0 && retryAfter <= 60, "retry after " + retryAfter);
+        assertEquals(0, limiter.tryAcquire(LoginRateLimiter.KeyType.USERNAME, "coach"));
+
+        assertEquals(1.0, registry.counter("auth.login.ratelimit.rejected", "key", "username").count());
+    }
+
+    @Test
+    void idleKeysAreEvictedToStayWithinBound() {
+        LoginRateLimiter limiter = new LoginRateLimiter(new SimpleMeterRegistry(), 10, 10, 1000, 5, 600000, 160);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire(LoginRateLimiter.KeyType.IP, "10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        assertTrue(limiter.trackedKeys(LoginRateLimiter.KeyType.IP) <= 160 + 16);
+    }
+}
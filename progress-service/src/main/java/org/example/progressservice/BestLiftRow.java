@@ -0,0 +1,10 @@
+package org.example.progressservice;
+
+import java.time.LocalDate;
+
+public interface BestLiftRow {
+    Integer getExerciseId();
+    String getUsername();
+    Integer getWeight();
+    LocalDate getDate();
+}
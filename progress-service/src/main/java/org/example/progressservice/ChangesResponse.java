@@ -0,0 +1,23 @@
+package org.example.progressservice;
+
+import java.util.List;
+
+// Ответ /changes: изменённые и созданные записи, id удалённых и токен для следующего запроса
+public class ChangesResponse<T> {
+    private final List<T> changed;
+    private final List<Long> deleted;
+    private final long next;
+    private final boolean hasMore;
+
+    public ChangesResponse(List<T> changed, List<Long> deleted, long next, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getChanged() { return changed; }
+    public List<Long> getDeleted() { return deleted; }
+    public long getNext() { return next; }
+    public boolean isHasMore() { return hasMore; }
+}
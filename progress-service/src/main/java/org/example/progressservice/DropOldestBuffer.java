@@ -0,0 +1,56 @@
+package org.example.progressservice;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ограниченная очередь одного подписчика: при переполнении вытесняется самый старый элемент, публикующий поток
+// никогда не ждёт медленного клиента. offer сообщает, нужно ли запланировать отправку: отправка одна на буфер,
+// она забирает элементы drain до пустого буфера
+class DropOldestBuffer<T> {
+
+    record Batch<T>(List<T> items, long dropped) { }
+
+    private final ArrayDeque<T> items;
+    private final int capacity;
+    private long dropped;
+    private boolean draining;
+
+    DropOldestBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.items = new ArrayDeque<>(capacity);
+        this.capacity = capacity;
+    }
+
+    // true - отправка не запланирована и её должен запланировать вызывающий
+    synchronized boolean offer(T item) {
+        if (items.size() == capacity) {
+            items.pollFirst();
+            dropped++;
+        }
+        items.addLast(item);
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    // Всё накопленное и число вытесненных с прошлого вызова; null - буфер пуст, отправка завершена
+    synchronized Batch<T> drain() {
+        if (items.isEmpty()) {
+            draining = false;
+            return null;
+        }
+        Batch<T> batch = new Batch<>(new ArrayList<>(items), dropped);
+        items.clear();
+        dropped = 0;
+        return batch;
+    }
+
+    synchronized int size() {
+        return items.size();
+    }
+}
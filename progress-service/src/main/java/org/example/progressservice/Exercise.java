@@ -0,0 +1,27 @@
+package org.example.progressservice;
+
+import jakarta.persistence.*;
+
+// Запись справочника упражнений; строки создаются только через ExerciseRepository.insertIfAbsent
+@Entity
+@Table(name = "exercises")
+public class Exercise {
+    @Id
+    private Integer id;
+    @Column(nullable = false)
+    private String name;
+    @Column(name = "normalized_name", nullable = false)
+    private String normalizedName;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+}
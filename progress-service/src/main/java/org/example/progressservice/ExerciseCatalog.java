@@ -0,0 +1,105 @@
+package org.example.progressservice;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Соответствие название <-> id упражнения в памяти: запись и чтение прогресса обходятся без обращения к справочнику.
+// Загружается при старте; упражнения, созданные другими экземплярами, подгружаются из БД при первом обращении.
+// Ключ - normalized_name из БД: нормализацию считает только exercise_key, кэш запоминает, в какой ключ
+// она перевела каждое встреченное написание
+@Component
+public class ExerciseCatalog {
+
+    // Написания присылают клиенты; сверх предела новые не запоминаются и ищутся в БД
+    static final int MAX_CACHED_SPELLINGS = 10_000;
+
+    private final ExerciseRepository exerciseRepository;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, String> keysByName = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    public ExerciseCatalog(ExerciseRepository exerciseRepository, PlatformTransactionManager transactionManager) {
+        this.exerciseRepository = exerciseRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        exerciseRepository.findAll().forEach(exercise -> cache(exercise.getName(), exercise));
+        System.out.println("[DEBUG] Exercise catalog loaded: " + namesById.size() + " exercises");
+    }
+
+    // id упражнения, при необходимости созданного; null для пустого названия.
+    // Создание идёт в отдельной транзакции: откат записи прогресса не должен оставить в кэше несуществующий id
+    public Integer idFor(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        Integer id = cachedId(name);
+        if (id != null) {
+            return id;
+        }
+        Optional<Exercise> exercise = newTransaction.execute(status -> {
+            exerciseRepository.insertIfAbsent(name);
+            return exerciseRepository.findByName(name);
+        });
+        exercise.ifPresent(created -> cache(name, created));
+        return exercise.map(Exercise::getId).orElse(null);
+    }
+
+    // id существующего упражнения, без создания
+    public Optional<Integer> find(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        Integer id = cachedId(name);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<Exercise> exercise = exerciseRepository.findByName(name);
+        exercise.ifPresent(found -> cache(name, found));
+        return exercise.map(Exercise::getId);
+    }
+
+    public String nameOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String name = namesById.get(id);
+        if (name == null) {
+            name = exerciseRepository.findById(id).map(exercise -> {
+                cache(exercise.getName(), exercise);
+                return exercise.getName();
+            }).orElse(null);
+        }
+        return name;
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    private Integer cachedId(String name) {
+        String key = keysByName.get(name);
+        return key != null ? idsByKey.get(key) : null;
+    }
+
+    private void cache(String spelling, Exercise exercise) {
+        namesById.put(exercise.getId(), exercise.getName());
+        idsByKey.put(exercise.getNormalizedName(), exercise.getId());
+        keysByName.putIfAbsent(exercise.getName(), exercise.getNormalizedName());
+        if (keysByName.size() < MAX_CACHED_SPELLINGS) {
+            keysByName.putIfAbsent(spelling, exercise.getNormalizedName());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.progressservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+// Ключ упражнения считает функция БД exercise_key (см. V6__exercises_catalog.sql), как и при миграции
+public interface ExerciseRepository extends JpaRepository<Exercise, Integer> {
+
+    @Query(value = "select * from exercises e where e.normalized_name = exercise_key(:name)", nativeQuery = true)
+    Optional<Exercise> findByName(@Param("name") String name);
+
+    // Название из одних пробелов не создаёт упражнения: findByName после вставки вернёт пусто
+    @Modifying
+    @Query(value = "insert into exercises (name, normalized_name) "
+            + "select btrim(regexp_replace(:name, '\\s+', ' ', 'g')), exercise_key(:name) where exercise_key(:name) <> '' "
+            + "on conflict (normalized_name) do nothing", nativeQuery = true)
+    void insertIfAbsent(@Param("name") String name);
+}
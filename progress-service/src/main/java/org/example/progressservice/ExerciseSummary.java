@@ -0,0 +1,156 @@
+package org.example.progressservice;
+
+import jakarta.persistence.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Сводка по упражнению пользователя; record() применяет одну новую запись прогресса.
+// Правила выбора рекордов совпадают с пересчётом в ExerciseSummaryRepository.rebuild
+@Entity
+@Table(name = "progress_exercise_summaries")
+@IdClass(ExerciseSummaryId.class)
+public class ExerciseSummary {
+    @Id
+    private String username;
+    @Id
+    @Column(name = "exercise_id")
+    private Integer exerciseId;
+    @Column(name = "best_weight")
+    private Integer bestWeight;
+    @Column(name = "best_weight_reps")
+    private Integer bestWeightReps;
+    @Column(name = "best_weight_date")
+    private LocalDate bestWeightDate;
+    @Column(name = "best_e1rm")
+    private Double bestE1rm;
+    @Column(name = "best_e1rm_date")
+    private LocalDate bestE1rmDate;
+    @Column(name = "total_sets", nullable = false)
+    private long totalSets;
+    @Column(name = "total_reps", nullable = false)
+    private long totalReps;
+    @Column(name = "total_volume", nullable = false)
+    private long totalVolume;
+    @Column(name = "week_start")
+    private LocalDate weekStart;
+    @Column(name = "week_volume", nullable = false)
+    private long weekVolume;
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    public ExerciseSummary() {
+    }
+
+    public ExerciseSummary(String username, Integer exerciseId) {
+        this.username = username;
+        this.exerciseId = exerciseId;
+    }
+
+    // Оценка одноповторного максимума по формуле Эпли; для одного повторения - сам вес
+    static Double estimateOneRepMax(Integer weight, Integer repetitions) {
+        if (weight == null || repetitions == null || repetitions <= 0) {
+            return null;
+        }
+        return repetitions == 1 ? weight.doubleValue() : weight * (1 + repetitions / 30.0);
+    }
+
+    // Понедельник недели, к которой относится дата
+    static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    void record(Progress progress) {
+        Integer weight = progress.getWeight();
+        Integer repetitions = progress.getRepetitions();
+        LocalDate date = progress.getDate();
+        long volume = weight == null || repetitions == null ? 0 : (long) weight * repetitions;
+
+        totalSets++;
+        totalReps += repetitions == null ? 0 : repetitions;
+        totalVolume += volume;
+
+        if (weight != null && (bestWeight == null || weight > bestWeight
+                || (weight.equals(bestWeight) && repetitions != null && (bestWeightReps == null || repetitions > bestWeightReps)))) {
+            bestWeight = weight;
+            bestWeightReps = repetitions;
+            bestWeightDate = date;
+        }
+        Double e1rm = estimateOneRepMax(weight, repetitions);
+        if (e1rm != null && (bestE1rm == null || e1rm > bestE1rm)) {
+            bestE1rm = e1rm;
+            bestE1rmDate = date;
+        }
+
+        if (date != null) {
+            LocalDate week = weekStart(date);
+            if (weekStart == null || week.isAfter(weekStart)) {
+                weekStart = week;
+                weekVolume = volume;
+            } else if (week.equals(weekStart)) {
+                weekVolume += volume;
+            }
+            if (lastDate == null || date.isAfter(lastDate)) {
+                lastDate = date;
+            }
+        }
+    }
+
+    // Объём за неделю, начинающуюся с week; сводка хранит только последнюю неделю с записями
+    long volumeForWeek(LocalDate week) {
+        return week.equals(weekStart) ? weekVolume : 0;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getExerciseId() {
+        return exerciseId;
+    }
+
+    public Integer getBestWeight() {
+        return bestWeight;
+    }
+
+    public Integer getBestWeightReps() {
+        return bestWeightReps;
+    }
+
+    public LocalDate getBestWeightDate() {
+        return bestWeightDate;
+    }
+
+    public Double getBestE1rm() {
+        return bestE1rm;
+    }
+
+    public LocalDate getBestE1rmDate() {
+        return bestE1rmDate;
+    }
+
+    public long getTotalSets() {
+        return totalSets;
+    }
+
+    public long getTotalReps() {
+        return totalReps;
+    }
+
+    public long getTotalVolume() {
+        return totalVolume;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public long getWeekVolume() {
+        return weekVolume;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+}
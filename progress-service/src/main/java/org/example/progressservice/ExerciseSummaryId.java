@@ -0,0 +1,33 @@
+package org.example.progressservice;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class ExerciseSummaryId implements Serializable {
+    private String username;
+    private Integer exerciseId;
+
+    public ExerciseSummaryId() {
+    }
+
+    public ExerciseSummaryId(String username, Integer exerciseId) {
+        this.username = username;
+        this.exerciseId = exerciseId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExerciseSummaryId other)) {
+            return false;
+        }
+        return Objects.equals(username, other.username) && Objects.equals(exerciseId, other.exerciseId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(username, exerciseId);
+    }
+}
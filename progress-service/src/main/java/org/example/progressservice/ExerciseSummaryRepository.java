@@ -0,0 +1,53 @@
+package org.example.progressservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ExerciseSummaryRepository extends JpaRepository<ExerciseSummary, ExerciseSummaryId> {
+    List<ExerciseSummary> findByUsername(String username);
+
+    // Отпечаток сводок пользователя: по нему пересчёт определяет, изменились ли данные. exerciseId = null - все упражнения
+    @Query(value = "select md5(coalesce(string_agg(s::text, ',' order by s.exercise_id), '')) "
+            + "from progress_exercise_summaries s where s.username = :username "
+            + "and (cast(:exerciseId as integer) is null or s.exercise_id = :exerciseId)", nativeQuery = true)
+    String digest(@Param("username") String username, @Param("exerciseId") Integer exerciseId);
+
+    // exerciseId = null - все упражнения пользователя
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "delete from progress_exercise_summaries s where s.username = :username "
+            + "and (cast(:exerciseId as integer) is null or s.exercise_id = :exerciseId)", nativeQuery = true)
+    void deleteSummaries(@Param("username") String username, @Param("exerciseId") Integer exerciseId);
+
+    // Пересчёт из исходных строк и дневных агрегатов свёрнутых секций по тем же правилам, что ExerciseSummary.record:
+    // при равенстве рекорд остаётся за более ранней записью (агрегаты старше любых строк), объём недели -
+    // за последнюю неделю с записями
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "with lifts as ("
+            + "select p.exercise_id, p.id, p.date, p.weight, p.repetitions, 1 as sets, p.repetitions as reps, "
+            + "p.weight::bigint * p.repetitions as volume, case when p.repetitions = 1 then p.weight::float8 "
+            + "when p.repetitions > 0 then p.weight * (1 + p.repetitions / 30.0::float8) end as e1rm from progress p "
+            + "where p.username = :username and p.exercise_id is not null "
+            + "and (cast(:exerciseId as integer) is null or p.exercise_id = :exerciseId) "
+            + "union all select r.exercise_id, null, r.day, r.max_weight, r.max_weight_reps, r.sets, r.total_reps, "
+            + "r.total_volume, r.best_e1rm from progress_daily_rollups r where r.username = :username "
+            + "and (cast(:exerciseId as integer) is null or r.exercise_id = :exerciseId)), "
+            + "g as (select l.exercise_id, sum(l.sets) as total_sets, coalesce(sum(l.reps), 0) as total_reps, "
+            + "coalesce(sum(l.volume), 0) as total_volume, max(l.date) as last_date, "
+            + "date_trunc('week', max(l.date))::date as week_start from lifts l group by l.exercise_id) "
+            + "insert into progress_exercise_summaries (username, exercise_id, best_weight, best_weight_reps, "
+            + "best_weight_date, best_e1rm, best_e1rm_date, total_sets, total_reps, total_volume, week_start, week_volume, last_date) "
+            + "select :username, g.exercise_id, bw.weight, bw.repetitions, bw.date, be.e1rm, be.date, "
+            + "g.total_sets, g.total_reps, g.total_volume, g.week_start, "
+            + "coalesce((select sum(l.volume) from lifts l where l.exercise_id = g.exercise_id "
+            + "and l.date >= g.week_start), 0), g.last_date from g "
+            + "left join lateral (select l.weight, l.repetitions, l.date from lifts l where l.exercise_id = g.exercise_id "
+            + "and l.weight is not null order by l.weight desc, l.repetitions desc nulls last, l.date, l.id nulls first "
+            + "limit 1) bw on true "
+            + "left join lateral (select l.e1rm, l.date from lifts l where l.exercise_id = g.exercise_id "
+            + "and l.e1rm is not null order by l.e1rm desc, l.date, l.id nulls first limit 1) be on true", nativeQuery = true)
+    void rebuild(@Param("username") String username, @Param("exerciseId") Integer exerciseId);
+}
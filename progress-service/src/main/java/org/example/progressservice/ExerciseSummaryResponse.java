@@ -0,0 +1,43 @@
+package org.example.progressservice;
+
+import java.time.LocalDate;
+
+public class ExerciseSummaryResponse {
+    private String exerciseName;
+    private Integer bestWeight;
+    private Integer bestWeightReps;
+    private LocalDate bestWeightDate;
+    private Double estimatedOneRepMax;
+    private LocalDate estimatedOneRepMaxDate;
+    private long totalSets;
+    private long totalReps;
+    private long totalVolume;
+    private long weekVolume;
+    private LocalDate lastDate;
+
+    public ExerciseSummaryResponse(ExerciseSummary summary, String exerciseName, LocalDate currentWeek) {
+        this.exerciseName = exerciseName;
+        this.bestWeight = summary.getBestWeight();
+        this.bestWeightReps = summary.getBestWeightReps();
+        this.bestWeightDate = summary.getBestWeightDate();
+        this.estimatedOneRepMax = summary.getBestE1rm();
+        this.estimatedOneRepMaxDate = summary.getBestE1rmDate();
+        this.totalSets = summary.getTotalSets();
+        this.totalReps = summary.getTotalReps();
+        this.totalVolume = summary.getTotalVolume();
+        this.weekVolume = summary.volumeForWeek(currentWeek);
+        this.lastDate = summary.getLastDate();
+    }
+
+    public String getExerciseName() { return exerciseName; }
+    public Integer getBestWeight() { return bestWeight; }
+    public Integer getBestWeightReps() { return bestWeightReps; }
+    public LocalDate getBestWeightDate() { return bestWeightDate; }
+    public Double getEstimatedOneRepMax() { return estimatedOneRepMax; }
+    public LocalDate getEstimatedOneRepMaxDate() { return estimatedOneRepMaxDate; }
+    public long getTotalSets() { return totalSets; }
+    public long getTotalReps() { return totalReps; }
+    public long getTotalVolume() { return totalVolume; }
+    public long getWeekVolume() { return weekVolume; }
+    public LocalDate getLastDate() { return lastDate; }
+}
@@ -0,0 +1,280 @@
+package org.example.progressservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Таблицы лидеров по упражнению и окну (неделя, месяц, всё время): top-N лучших весов, по одной строке на пользователя.
+// Запись берёт блокировку полосы упражнения (striped lock), строит новый отсортированный список и публикует его
+// целиком, поэтому чтение не блокируется и не копирует данные. Окна календарные: при смене недели или месяца
+// таблица начинается заново. Полная перестройка держит в памяти только top-N каждой таблицы.
+@Component
+public class Leaderboard {
+
+    public enum Window {
+        WEEK, MONTH, ALL;
+
+        LocalDate start(LocalDate today) {
+            return switch (this) {
+                case WEEK -> today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> today.withDayOfMonth(1);
+                case ALL -> LocalDate.EPOCH;
+            };
+        }
+    }
+
+    private record Key(Integer exerciseId, Window window) {
+    }
+
+    // Неизменяемый снимок таблицы за период, начинающийся с periodStart
+    private record Board(LocalDate periodStart, List<LeaderboardEntry> entries) {
+    }
+
+    private final int size;
+    private final ReentrantLock[] stripes;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Map<Key, Board> boards = new ConcurrentHashMap<>();
+    // Записи и удаления, пришедшие во время полной перестройки; повторяются на новых таблицах перед подменой
+    private List<Progress> pendingRecords;
+    private List<Progress> pendingRemovals;
+
+    public Leaderboard(@Value("${progress.leaderboard.size:100}") int size,
+                       @Value("${progress.leaderboard.stripes:64}") int stripes) {
+        this.size = size;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public List<LeaderboardEntry> top(Integer exerciseId, Window window, int limit) {
+        Board board = boards.get(new Key(exerciseId, window));
+        if (board == null || !board.periodStart().equals(window.start(LocalDate.now()))) {
+            return List.of();
+        }
+        List<LeaderboardEntry> entries = board.entries();
+        return entries.size() <= limit ? entries : entries.subList(0, limit);
+    }
+
+    // Вызывается после коммита записи прогресса
+    public void record(Progress progress) {
+        if (progress.getExerciseId() == null || progress.getWeight() == null || progress.getDate() == null) {
+            return;
+        }
+        ReentrantLock stripe = stripe(progress.getExerciseId());
+        stripe.lock();
+        try {
+            apply(boards, progress);
+            synchronized (this) {
+                if (pendingRecords != null) {
+                    pendingRecords.add(progress);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // После удаления записи. Если она стоит в таблицах, loader дочитывает из БД top-N окна без блокировки,
+    // а под блокировкой полосы результат сливается с текущей таблицей без удалённой строки:
+    // записи, пришедшие во время чтения, остаются в таблице
+    public void remove(Progress deleted, Function<Window, List<BestLiftRow>> loader) {
+        if (deleted.getExerciseId() == null || deleted.getWeight() == null || deleted.getDate() == null) {
+            return;
+        }
+        LeaderboardEntry entry = new LeaderboardEntry(deleted.getUsername(), deleted.getWeight(), deleted.getDate());
+        Map<Window, List<BestLiftRow>> loaded = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            Board board = boards.get(new Key(deleted.getExerciseId(), window));
+            if (board != null && indexOf(board.entries(), entry) >= 0) {
+                loaded.put(window, loader.apply(window));
+            }
+        }
+        if (loaded.isEmpty()) {
+            return;
+        }
+
+        ReentrantLock stripe = stripe(deleted.getExerciseId());
+        stripe.lock();
+        try {
+            loaded.forEach((window, rows) -> {
+                Key key = new Key(deleted.getExerciseId(), window);
+                Board board = boards.get(key);
+                if (board == null || !board.periodStart().equals(window.start(LocalDate.now()))) {
+                    return;
+                }
+                List<LeaderboardEntry> entries = new ArrayList<>(board.entries());
+                int index = indexOf(entries, entry);
+                if (index >= 0) {
+                    entries.remove(index);
+                }
+                for (BestLiftRow row : rows) {
+                    entries = insert(entries, new LeaderboardEntry(row.getUsername(), row.getWeight(), row.getDate()));
+                }
+                boards.put(key, new Board(board.periodStart(), trim(entries)));
+            });
+            synchronized (this) {
+                if (pendingRemovals != null) {
+                    pendingRemovals.add(deleted);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // source передаёт лучшие веса за каждое окно; чтение во время перестройки идёт по старым таблицам
+    public void rebuildAll(Consumer<Sink> source) {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                pendingRecords = new ArrayList<>();
+                pendingRemovals = new ArrayList<>();
+            }
+            LocalDate today = LocalDate.now();
+            // Куча на ключ с худшей из лучших size записей наверху: строк одного упражнения может быть сколько угодно
+            Map<Key, PriorityQueue<LeaderboardEntry>> loaded = new HashMap<>();
+            source.accept((window, row) -> {
+                PriorityQueue<LeaderboardEntry> top = loaded.computeIfAbsent(new Key(row.getExerciseId(), window),
+                        key -> new PriorityQueue<>(LeaderboardEntry.RANKING.reversed()));
+                top.add(new LeaderboardEntry(row.getUsername(), row.getWeight(), row.getDate()));
+                if (top.size() > size) {
+                    top.poll();
+                }
+            });
+
+            Map<Key, Board> next = new ConcurrentHashMap<>();
+            loaded.forEach((key, top) -> {
+                List<LeaderboardEntry> entries = new ArrayList<>(top);
+                entries.sort(LeaderboardEntry.RANKING);
+                next.put(key, new Board(key.window().start(today), List.copyOf(entries)));
+            });
+            lockAll();
+            try {
+                synchronized (this) {
+                    pendingRecords.forEach(progress -> apply(next, progress));
+                    pendingRemovals.forEach(progress -> drop(next, progress));
+                    pendingRecords = null;
+                    pendingRemovals = null;
+                }
+                boards = next;
+            } finally {
+                unlockAll();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public int boardCount() {
+        return boards.size();
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(Window window, BestLiftRow row);
+    }
+
+    private void apply(Map<Key, Board> target, Progress progress) {
+        LocalDate today = LocalDate.now();
+        LeaderboardEntry entry = new LeaderboardEntry(progress.getUsername(), progress.getWeight(), progress.getDate());
+        for (Window window : Window.values()) {
+            LocalDate periodStart = window.start(today);
+            if (entry.getDate().isBefore(periodStart)) {
+                continue;
+            }
+            Key key = new Key(progress.getExerciseId(), window);
+            Board board = target.get(key);
+            List<LeaderboardEntry> current = board == null || !board.periodStart().equals(periodStart)
+                    ? List.of() : board.entries();
+            List<LeaderboardEntry> updated = insert(current, entry);
+            if (updated != current) {
+                target.put(key, new Board(periodStart, updated));
+            }
+        }
+    }
+
+    // Удаление, пришедшее во время полной перестройки: строка убирается без добора из БД,
+    // таблица может оказаться короче size до следующей перестройки
+    private void drop(Map<Key, Board> target, Progress progress) {
+        LeaderboardEntry entry = new LeaderboardEntry(progress.getUsername(), progress.getWeight(), progress.getDate());
+        for (Window window : Window.values()) {
+            Key key = new Key(progress.getExerciseId(), window);
+            Board board = target.get(key);
+            int index = board == null ? -1 : indexOf(board.entries(), entry);
+            if (index >= 0) {
+                List<LeaderboardEntry> entries = new ArrayList<>(board.entries());
+                entries.remove(index);
+                target.put(key, new Board(board.periodStart(), List.copyOf(entries)));
+            }
+        }
+    }
+
+    private static int indexOf(List<LeaderboardEntry> entries, LeaderboardEntry entry) {
+        for (int i = 0; i < entries.size(); i++) {
+            LeaderboardEntry existing = entries.get(i);
+            if (existing.getUsername().equals(entry.getUsername())) {
+                return existing.getWeight() == entry.getWeight() && existing.getDate().equals(entry.getDate()) ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    // Новый список с entry на своём месте; тот же список, если entry не улучшает результат пользователя и не входит в top-N
+    private List<LeaderboardEntry> insert(List<LeaderboardEntry> current, LeaderboardEntry entry) {
+        List<LeaderboardEntry> updated = new ArrayList<>(current.size() + 1);
+        for (LeaderboardEntry existing : current) {
+            if (existing.getUsername().equals(entry.getUsername())) {
+                if (LeaderboardEntry.RANKING.compare(existing, entry) <= 0) {
+                    return current;
+                }
+            } else {
+                updated.add(existing);
+            }
+        }
+        int position = Collections.binarySearch(updated, entry, LeaderboardEntry.RANKING);
+        position = position < 0 ? -position - 1 : position;
+        if (position >= size) {
+            return current;
+        }
+        updated.add(position, entry);
+        return trim(updated);
+    }
+
+    private List<LeaderboardEntry> trim(List<LeaderboardEntry> entries) {
+        return List.copyOf(entries.size() > size ? entries.subList(0, size) : entries);
+    }
+
+    private ReentrantLock stripe(Integer exerciseId) {
+        return stripes[Math.floorMod(exerciseId, stripes.length)];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.progressservice;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+// Лучший вес пользователя в упражнении за окно; при равенстве выше тот, кто поднял раньше
+public class LeaderboardEntry {
+
+    static final Comparator<LeaderboardEntry> RANKING = Comparator
+            .comparingInt(LeaderboardEntry::getWeight).reversed()
+            .thenComparing(LeaderboardEntry::getDate)
+            .thenComparing(LeaderboardEntry::getUsername);
+
+    private final String username;
+    private final int weight;
+    private final LocalDate date;
+
+    public LeaderboardEntry(String username, int weight, LocalDate date) {
+        this.username = username;
+        this.weight = weight;
+        this.date = date;
+    }
+
+    public String getUsername() { return username; }
+    public int getWeight() { return weight; }
+    public LocalDate getDate() { return date; }
+}
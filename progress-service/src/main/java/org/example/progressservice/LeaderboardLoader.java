@@ -0,0 +1,54 @@
+package org.example.progressservice;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+// Заполняет Leaderboard из БД при старте. Периодическая полная перестройка (progress.leaderboard.rebuild-cron)
+// по умолчанию выключена: она читает всю историю; включается, если несколько экземпляров progress-service
+// должны подтягивать записи друг друга
+@Component
+public class LeaderboardLoader {
+
+    private final Leaderboard leaderboard;
+    private final ProgressRepository progressRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public LeaderboardLoader(Leaderboard leaderboard, ProgressRepository progressRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.leaderboard = leaderboard;
+        this.progressRepository = progressRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${progress.leaderboard.rebuild-cron:-}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            LocalDate today = LocalDate.now();
+            leaderboard.rebuildAll(sink -> readOnlyTransaction.executeWithoutResult(status -> {
+                for (Leaderboard.Window window : Leaderboard.Window.values()) {
+                    try (Stream<BestLiftRow> rows = progressRepository.streamBestLiftsSince(window.start(today))) {
+                        rows.forEach(row -> sink.accept(window, row));
+                    }
+                }
+            }));
+            System.out.println("[DEBUG] Leaderboards rebuilt: " + leaderboard.boardCount() + " boards in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to rebuild leaderboards: " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.progressservice;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 import java.time.LocalDate;
 
@@ -9,8 +11,9 @@ public class Progress {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @Column
-    private String exerciseName;
+    // Упражнение из справочника exercises; название - через ExerciseCatalog
+    @Column(name = "exercise_id")
+    private Integer exerciseId;
     @Column
     private Integer weight;
     @Column
@@ -19,6 +22,11 @@ public class Progress {
     private LocalDate date;
     @Column
     private String username;
+    // Номер последнего изменения; выдаёт триггер БД (см. V3__progress_change_seq.sql),
+    // Hibernate перечитывает его после вставки и обновления, иначе ответ на запись вернул бы null
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
 
     public Long getId() {
         return id;
@@ -28,12 +36,12 @@ public class Progress {
         this.id = id;
     }
 
-    public String getExerciseName() {
-        return exerciseName;
+    public Integer getExerciseId() {
+        return exerciseId;
     }
 
-    public void setExerciseName(String exerciseName) {
-        this.exerciseName = exerciseName;
+    public void setExerciseId(Integer exerciseId) {
+        this.exerciseId = exerciseId;
     }
 
     public Integer getWeight() {
@@ -67,4 +75,8 @@ public class Progress {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
 }
@@ -1,84 +1,341 @@
 package org.example.progressservice;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/progress")
 public class ProgressController {
 
     private final ProgressRepository progressRepository;
-    private final UserServiceClient userClient;
-    private final JwtUtil jwtUtil;
+    private final ProgressService progressService;
+    private final UserDataVersionRepository versionRepository;
+    private final UserExistenceCache userExistence;
+    private final Leaderboard leaderboard;
+    private final ProgressExporter progressExporter;
+    private final ExerciseCatalog exerciseCatalog;
+    private final ProgressFeed progressFeed;
+
+    private static final List<String> SERIES_BUCKETS = List.of("week", "month");
+    private static final List<String> SERIES_DOWNSAMPLE = List.of("none", "lttb");
+    private static final List<String> LEADERBOARD_WINDOWS = List.of("week", "month", "all");
+
+    @Value("${progress.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${progress.series.max-points:1000}")
+    private int maxSeriesPoints;
+
+    @Value("${progress.leaderboard.size:100}")
+    private int leaderboardSize;
+
+    @Value("${progress.stream.max-athletes:100}")
+    private int maxStreamAthletes;
+
+    @Value("${progress.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
 
     @Autowired
-    public ProgressController(ProgressRepository progressRepository, UserServiceClient userClient, JwtUtil jwtUtil) {
+    public ProgressController(ProgressRepository progressRepository, ProgressService progressService,
+                              UserDataVersionRepository versionRepository, UserExistenceCache userExistence,
+                              Leaderboard leaderboard, ProgressExporter progressExporter,
+                              ExerciseCatalog exerciseCatalog, ProgressFeed progressFeed) {
         this.progressRepository = progressRepository;
-        this.userClient = userClient;
-        this.jwtUtil = jwtUtil;
+        this.progressService = progressService;
+        this.versionRepository = versionRepository;
+        this.userExistence = userExistence;
+        this.leaderboard = leaderboard;
+        this.progressExporter = progressExporter;
+        this.exerciseCatalog = exerciseCatalog;
+        this.progressFeed = progressFeed;
     }
 
     @PostMapping
-    public ResponseEntity<ProgressResponse> addProgress(@RequestBody ProgressRequest request, @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ProgressResponse> addProgress(@RequestBody ProgressRequest request,
+                                                        @RequestHeader("Authorization") String token,
+                                                        @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         try {
-            if (token == null || !token.startsWith("Bearer ")) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ProgressResponse("Missing token"));
-            }
-            String jwt = token.replace("Bearer ", "");
-            if (!jwtUtil.validateToken(jwt)) {
+            if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ProgressResponse("Invalid token"));
             }
-            String username = jwtUtil.extractUsername(jwt);
-            UserDto user = userClient.getUserByUsername(username, token);
-            if (user == null) {
+            String username = claims.getUsername();
+            if (!userExistence.exists(username, token)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ProgressResponse("User not found"));
             }
 
             Progress progress = new Progress();
-            progress.setExerciseName(request.getExerciseName());
+            progress.setExerciseId(exerciseCatalog.idFor(request.getExerciseName()));
             progress.setWeight(request.getWeight());
             progress.setRepetitions(request.getRepetitions());
             progress.setDate(LocalDate.now());
             progress.setUsername(username);
 
-            Progress saved = progressRepository.save(progress);
-            return ResponseEntity.ok(new ProgressResponse(saved));
+            Progress saved = progressService.save(progress);
+            leaderboard.record(saved);
+            ProgressResponse response = new ProgressResponse(saved, exerciseCatalog.nameOf(saved.getExerciseId()));
+            progressFeed.publish(response);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             System.err.println("[ERROR] Failed to add progress: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ProgressResponse("Error: " + e.getMessage()));
         }
     }
 
+    // Записи за период [from, to]; без from/to - вся история пользователя, как и раньше.
+    // С периодом запрос читает только месячные секции этого периода
     @GetMapping
-    public ResponseEntity<List<ProgressResponse>> getMyProgress(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<List<ProgressResponse>> getMyProgress(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 @RequestHeader("Authorization") String token,
+                                                                 @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims,
+                                                                 WebRequest webRequest) {
         try {
-            if (token == null || !token.startsWith("Bearer ")) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of(new ProgressResponse("Missing token")));
-            }
-            String jwt = token.replace("Bearer ", "");
-            if (!jwtUtil.validateToken(jwt)) {
+            if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of(new ProgressResponse("Invalid token")));
             }
-            String username = jwtUtil.extractUsername(jwt);
-            UserDto user = userClient.getUserByUsername(username, token);
-            if (user == null) {
+            String username = claims.getUsername();
+            LocalDate until = to != null ? to : LocalDate.now();
+            // Даты записей выставляет сервис, строки без даты получили 1970-01-01 (V7): EPOCH ограничивает только формально
+            LocalDate since = from != null ? from : LocalDate.EPOCH;
+            // Версия данных пользователя и период - сильный ETag списка; совпадение означает 304 без обращения к progress
+            String etag = "\"" + versionRepository.currentVersion(username) + "-"
+                    + Integer.toHexString((since + "|" + until).hashCode()) + "\"";
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            if (!userExistence.exists(username, token)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of(new ProgressResponse("User not found")));
             }
 
-            List<Progress> progressList = progressRepository.findByUsername(username);
+            List<Progress> progressList = progressRepository.findByUsernameAndDateRange(username, since, until.plusDays(1));
             List<ProgressResponse> responses = progressList.stream()
-                    .map(ProgressResponse::new)
+                    .map(progress -> new ProgressResponse(progress, exerciseCatalog.nameOf(progress.getExerciseId())))
                     .collect(Collectors.toList());
-            return ResponseEntity.ok(responses);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(responses);
         } catch (Exception e) {
             System.err.println("[ERROR] Failed to fetch progress: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of(new ProgressResponse("Error: " + e.getMessage())));
         }
     }
-}
\ No newline at end of file
+
+    // Живая лента новых записей спортсменов (athletes через запятую, по умолчанию - свои) для панели тренера:
+    // одно SSE-соединение вместо опроса списков. Чужие записи видит только роль COACH. Лента не повторяет
+    // пропущенное: после переподключения (в том числе после отключения отстающего клиента) клиент перечитывает список
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProgress(@RequestParam(required = false) List<String> athletes,
+                                                     @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String username = claims.getUsername();
+        Set<String> watched = new LinkedHashSet<>();
+        if (athletes != null) {
+            athletes.stream().map(String::trim).filter(athlete -> !athlete.isEmpty()).forEach(watched::add);
+        }
+        if (watched.isEmpty()) {
+            watched.add(username);
+        }
+        if (watched.size() > maxStreamAthletes) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (!claims.getRoles().contains("COACH") && !watched.equals(Set.of(username))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        progressFeed.subscribe(emitter, Set.copyOf(watched));
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(emitter);
+    }
+
+    // Выгрузка всей истории ("скачать мои данные"), format=ndjson или csv: тело пишется потоком из отдельного потока MVC async,
+    // поток запроса не занят; при Accept-Encoding: gzip ответ сжимается на лету
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProgress(@RequestParam(defaultValue = "ndjson") String format,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        ProgressExporter.Format exportFormat;
+        try {
+            exportFormat = ProgressExporter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String username = claims.getUsername();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                progressExporter.export(username, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                progressExporter.export(username, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat == ProgressExporter.Format.CSV ? "text/csv" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("progress." + exportFormat.name().toLowerCase()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Рекорды, оценка 1ПМ и объём по каждому упражнению из сводной таблицы, без чтения истории
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(@RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims,
+                                        WebRequest webRequest) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        String username = claims.getUsername();
+        LocalDate currentWeek = ExerciseSummary.weekStart(LocalDate.now());
+        // Объём недели зависит и от текущей даты, поэтому неделя входит в тег
+        String etag = "\"" + versionRepository.currentVersion(username) + "-" + currentWeek + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<ExerciseSummaryResponse> summaries = progressService.getSummaries(username).stream()
+                .map(summary -> new ExerciseSummaryResponse(summary, exerciseCatalog.nameOf(summary.getExerciseId()), currentWeek))
+                .sorted(Comparator.comparing(ExerciseSummaryResponse::getExerciseName, String.CASE_INSENSITIVE_ORDER))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(summaries);
+    }
+
+    // Ряд для графика упражнения: max вес, сумма повторений и объём по неделям или месяцам.
+    // Не больше points точек: без прореживания - последние points периодов, с downsample=lttb - весь период
+    // с точками, сохраняющими форму кривой максимального веса. from/to ограничивают период и читаемые секции
+    @GetMapping("/series")
+    public ResponseEntity<?> getSeries(@RequestParam String exercise,
+                                       @RequestParam(defaultValue = "week") String bucket,
+                                       @RequestParam(defaultValue = "200") int points,
+                                       @RequestParam(defaultValue = "none") String downsample,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims,
+                                       WebRequest webRequest) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (!SERIES_BUCKETS.contains(bucket)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("bucket must be one of " + SERIES_BUCKETS);
+        }
+        if (!SERIES_DOWNSAMPLE.contains(downsample)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("downsample must be one of " + SERIES_DOWNSAMPLE);
+        }
+        if (points < 3) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("points must be at least 3");
+        }
+        String username = claims.getUsername();
+        String etag = "\"" + versionRepository.currentVersion(username) + "-"
+                + Integer.toHexString((exercise + "|" + bucket + "|" + points + "|" + downsample + "|" + from + "|" + to)
+                .hashCode()) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        int limit = Math.min(points, maxSeriesPoints);
+        Optional<Integer> exerciseId = exerciseCatalog.find(exercise);
+        List<ProgressSeriesRow> rows = exerciseId.isEmpty() ? List.of()
+                : progressRepository.aggregateSeries(username, exerciseId.get(), bucket,
+                        from != null ? from : LocalDate.EPOCH, to != null ? to.plusDays(1) : LocalDate.now().plusDays(1));
+        List<ProgressSeriesPoint> series;
+        if (rows.size() <= limit) {
+            series = rows.stream().map(ProgressSeriesPoint::new).collect(Collectors.toList());
+        } else if (downsample.equals("lttb")) {
+            double[] x = new double[rows.size()];
+            double[] y = new double[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                x[i] = rows.get(i).getBucketStart().toLocalDate().toEpochDay();
+                y[i] = rows.get(i).getMaxWeight() == null ? 0 : rows.get(i).getMaxWeight();
+            }
+            series = Arrays.stream(Lttb.select(x, y, limit))
+                    .mapToObj(i -> new ProgressSeriesPoint(rows.get(i)))
+                    .collect(Collectors.toList());
+        } else {
+            series = rows.subList(rows.size() - limit, rows.size()).stream()
+                    .map(ProgressSeriesPoint::new)
+                    .collect(Collectors.toList());
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(series);
+    }
+
+    // Лучшие веса в упражнении за текущую неделю, месяц или всё время; читается из памяти без обращения к БД
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboard(@RequestParam String exercise,
+                                            @RequestParam(defaultValue = "month") String window,
+                                            @RequestParam(defaultValue = "10") int limit,
+                                            @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (!LEADERBOARD_WINDOWS.contains(window)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("window must be one of " + LEADERBOARD_WINDOWS);
+        }
+        int size = Math.max(1, Math.min(limit, leaderboardSize));
+        Leaderboard.Window boardWindow = Leaderboard.Window.valueOf(window.toUpperCase());
+        return ResponseEntity.ok(exerciseCatalog.find(exercise)
+                .map(exerciseId -> leaderboard.top(exerciseId, boardWindow, size))
+                .orElse(List.of()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteProgress(@PathVariable Long id,
+                                               @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<Progress> deleted = progressService.delete(claims.getUsername(), id);
+        if (deleted.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Integer exerciseId = deleted.get().getExerciseId();
+        LocalDate today = LocalDate.now();
+        leaderboard.remove(deleted.get(),
+                window -> progressRepository.findBestLiftsSince(exerciseId, window.start(today), leaderboardSize));
+        return ResponseEntity.noContent().build();
+    }
+
+    // Дельта-синхронизация: созданные, изменённые и удалённые после токена since записи.
+    // Токен следующего запроса - поле next ответа; 410 - токен старше хранимых tombstone, нужна полная синхронизация
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+                                        @RequestParam(defaultValue = "200") int size,
+                                        @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (since < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("since must not be negative");
+        }
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        return progressService.changesSince(claims.getUsername(), since, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).body("Sync token expired, full resync required"));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.progressservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+// Выгрузка всех записей прогресса пользователя: строки читаются курсором БД и сразу пишутся в ответ,
+// так что память не зависит от длины истории
+@Component
+public class ProgressExporter {
+
+    enum Format { NDJSON, CSV }
+
+    private final ObjectMapper objectMapper;
+    private final ProgressRepository progressRepository;
+    private final ExerciseCatalog exerciseCatalog;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProgressExporter(ObjectMapper objectMapper, ProgressRepository progressRepository,
+                            ExerciseCatalog exerciseCatalog, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.progressRepository = progressRepository;
+        this.exerciseCatalog = exerciseCatalog;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(String username, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write("id,exerciseName,weight,repetitions,date\n");
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Progress> rows = progressRepository.streamByUsernameOrderById(username)) {
+                    rows.forEach(progress -> {
+                        try {
+                            String exerciseName = exerciseCatalog.nameOf(progress.getExerciseId());
+                            if (format == Format.CSV) {
+                                writeCsv(writer, progress, exerciseName);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(new ProgressResponse(progress, exerciseName)));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        entityManager.detach(progress);
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsv(Writer writer, Progress progress, String exerciseName) throws IOException {
+        writer.write(String.valueOf(progress.getId()));
+        writer.write(',');
+        writer.write(csvValue(exerciseName));
+        writer.write(',');
+        writer.write(progress.getWeight() == null ? "" : progress.getWeight().toString());
+        writer.write(',');
+        writer.write(progress.getRepetitions() == null ? "" : progress.getRepetitions().toString());
+        writer.write(',');
+        writer.write(progress.getDate() == null ? "" : progress.getDate().toString());
+        writer.write('\n');
+    }
+
+    // Кавычки по RFC 4180, только когда они нужны
+    static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
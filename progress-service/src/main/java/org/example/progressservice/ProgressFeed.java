@@ -0,0 +1,226 @@
+package org.example.progressservice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Раздача новых записей прогресса подписчикам SSE (/api/progress/stream) внутри одного экземпляра сервиса.
+// publish только кладёт событие в буферы подписчиков; в сокет пишут sender-threads потоков, по одной отправке
+// на подписчика одновременно. Медленный клиент теряет самые старые события и получает событие dropped
+// с их числом, чтобы перечитать список. Отправка, висящая дольше send-timeout-ms, отключает подписчика,
+// а пул получает поток взамен занятого: SseEmitter.send нельзя прервать, поток освободится только по таймауту
+// записи контейнера, и без замены несколько зависших клиентов остановили бы ленту для всех
+@Component
+public class ProgressFeed {
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribersByAthlete = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor sender;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int senderThreads;
+    private final long sendTimeoutNanos;
+    // Потоки, занятые отправками, которые признаны зависшими; столько же потоков добавлено в пул
+    private int stalledSends;
+
+    public ProgressFeed(ObjectMapper objectMapper,
+                        @Value("${progress.stream.buffer-size:256}") int bufferSize,
+                        @Value("${progress.stream.sender-threads:4}") int senderThreads,
+                        @Value("${progress.stream.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.senderThreads = senderThreads;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "progress-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void subscribe(SseEmitter emitter, Set<String> athletes) {
+        Subscriber subscriber = new Subscriber(emitter, athletes, new DropOldestBuffer<>(bufferSize));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        for (String athlete : athletes) {
+            // Изменение набора внутри compute: параллельный unsubscribe не удалит набор, в который уже добавили подписчика
+            subscribersByAthlete.compute(athlete, (key, current) -> {
+                Set<Subscriber> subscribers = current != null ? current : ConcurrentHashMap.newKeySet();
+                subscribers.add(subscriber);
+                return subscribers;
+            });
+        }
+        subscriberCount.incrementAndGet();
+    }
+
+    // Вызывается после коммита записи прогресса; JSON строится один раз на всех подписчиков.
+    // Ошибка ленты не должна ломать сохранение, поэтому не пробрасывается
+    public void publish(ProgressResponse progress) {
+        Set<Subscriber> subscribers = subscribersByAthlete.get(progress.getUsername());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(progress);
+        } catch (JsonProcessingException e) {
+            System.err.println("[ERROR] Failed to publish progress " + progress.getId() + ": " + e.getMessage());
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().id(String.valueOf(progress.getId())).name("progress").data(json));
+        }
+    }
+
+    // Комментарий раз в интервал не даёт прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${progress.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribersByAthlete.values().stream()
+                .flatMap(Set::stream)
+                .distinct()
+                .filter(subscriber -> subscriber.buffer.size() == 0)
+                .forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("keepalive")));
+    }
+
+    // Отправка дольше send-timeout-ms: подписчик отключается, пул получает поток взамен занятого.
+    // Замен не больше sender-threads: дальше зависшие клиенты снова ждут таймаута записи контейнера
+    @Scheduled(fixedDelayString = "${progress.stream.send-timeout-ms:5000}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        subscribersByAthlete.values().stream()
+                .flatMap(Set::stream)
+                .distinct()
+                .filter(subscriber -> markStalled(subscriber, now))
+                .forEach(this::unsubscribe);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.buffer.offer(event)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                unsubscribe(subscriber);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        DropOldestBuffer.Batch<SseEmitter.SseEventBuilder> batch;
+        while (!subscriber.stalled && (batch = subscriber.buffer.drain()) != null) {
+            try {
+                if (batch.dropped() > 0) {
+                    send(subscriber, SseEmitter.event().name("dropped").data(batch.dropped()));
+                }
+                for (SseEmitter.SseEventBuilder event : batch.items()) {
+                    if (subscriber.stalled) {
+                        break;
+                    }
+                    send(subscriber, event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился или соединение уже завершено: контейнер закроет запрос сам
+                unsubscribe(subscriber);
+                return;
+            }
+        }
+        if (subscriber.stalled) {
+            // Отправка наконец вернулась: подписчик уже отключён, в его сокет больше не пишем
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedAt = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            // Под монитором подписчика: завершение отправки и признание её зависшей не разминутся,
+            // и каждая добавленная замена будет убрана ровно один раз
+            synchronized (subscriber) {
+                subscriber.sendStartedAt = 0;
+                if (subscriber.stalled) {
+                    adjustStalledSends(-1);
+                }
+            }
+        }
+    }
+
+    private boolean markStalled(Subscriber subscriber, long now) {
+        synchronized (subscriber) {
+            long started = subscriber.sendStartedAt;
+            if (subscriber.stalled || started == 0 || now - started <= sendTimeoutNanos) {
+                return false;
+            }
+            subscriber.stalled = true;
+            adjustStalledSends(1);
+            return true;
+        }
+    }
+
+    private synchronized void adjustStalledSends(int delta) {
+        int replacements = Math.min(stalledSends + delta, senderThreads) - Math.min(stalledSends, senderThreads);
+        stalledSends += delta;
+        if (replacements > 0) {
+            sender.setMaximumPoolSize(sender.getMaximumPoolSize() + replacements);
+            sender.setCorePoolSize(sender.getCorePoolSize() + replacements);
+        } else if (replacements < 0) {
+            sender.setCorePoolSize(sender.getCorePoolSize() + replacements);
+            sender.setMaximumPoolSize(sender.getMaximumPoolSize() + replacements);
+        }
+    }
+
+    // Может вызываться несколько раз (ошибка отправки, затем onCompletion); счётчик уменьшается один раз
+    private void unsubscribe(Subscriber subscriber) {
+        boolean[] removed = {false};
+        for (String athlete : subscriber.athletes) {
+            subscribersByAthlete.computeIfPresent(athlete, (key, current) -> {
+                removed[0] |= current.remove(subscriber);
+                return current.isEmpty() ? null : current;
+            });
+        }
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    // Подписчик - одно соединение; равенство по ссылке
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Set<String> athletes;
+        final DropOldestBuffer<SseEmitter.SseEventBuilder> buffer;
+        // Начало текущей отправки (System.nanoTime), 0 - не отправляет
+        volatile long sendStartedAt;
+        volatile boolean stalled;
+
+        Subscriber(SseEmitter emitter, Set<String> athletes, DropOldestBuffer<SseEmitter.SseEventBuilder> buffer) {
+            this.emitter = emitter;
+            this.athletes = athletes;
+            this.buffer = buffer;
+        }
+    }
+}
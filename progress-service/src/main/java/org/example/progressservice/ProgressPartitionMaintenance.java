@@ -0,0 +1,223 @@
+package org.example.progressservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Обслуживает месячные секции progress (V7): заранее создаёт секции на months-ahead месяцев вперёд и сворачивает
+// секции старше rollup-after-months месяцев в progress_daily_rollups. Выполняет один экземпляр сервиса
+// (pg_try_advisory_lock), все команды идут через соединение, держащее блокировку.
+// Секция сначала отсоединяется через DETACH ... CONCURRENTLY: он ждёт долгие запросы (экспорт, загрузку лидеров),
+// не останавливая чтение и запись progress. Затем одна транзакция сворачивает и удаляет уже отдельную таблицу;
+// она и создание секций ждут блокировку не дольше lock-timeout-ms и повторяются. Таблица, отсоединённая прошлым
+// запуском, но не свёрнутая, сворачивается при следующем. Пока секция отсоединена, её строк нет ни в progress,
+// ни в агрегатах; сводку, пересчитанную в этот момент, исправит ProgressSummaryRebuilder.
+// Свёртка по умолчанию выключена (rollup-after-months=0): удаление секции не пишет tombstone, поэтому клиенты
+// синхронизации сохраняют у себя старые записи, DELETE такой записи отвечает 404, а /export её не выгружает
+@Component
+public class ProgressPartitionMaintenance {
+
+    // Ключ pg_try_advisory_lock обслуживания секций
+    static final long ADVISORY_LOCK_KEY = 7_170_001L;
+
+    private static final String PARTITION_PREFIX = "progress_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String ROLLUP_SQL = "insert into progress_daily_rollups (username, exercise_id, day, sets, "
+            + "total_reps, total_volume, max_weight, max_weight_reps, best_e1rm) "
+            + "select p.username, p.exercise_id, p.date, count(*), coalesce(sum(p.repetitions), 0), "
+            + "coalesce(sum(p.weight::bigint * p.repetitions), 0), max(p.weight), "
+            + "(array_agg(p.repetitions order by p.weight desc nulls last, p.repetitions desc nulls last, p.id))[1], "
+            + "max(case when p.repetitions = 1 then p.weight::float8 "
+            + "when p.repetitions > 0 then p.weight * (1 + p.repetitions / 30.0::float8) end) "
+            + "from %s p where p.username is not null and p.exercise_id is not null "
+            + "group by p.username, p.exercise_id, p.date "
+            + "on conflict (username, exercise_id, day) do update set "
+            + "sets = progress_daily_rollups.sets + excluded.sets, "
+            + "total_reps = progress_daily_rollups.total_reps + excluded.total_reps, "
+            + "total_volume = progress_daily_rollups.total_volume + excluded.total_volume, "
+            + "max_weight_reps = case when progress_daily_rollups.max_weight is null "
+            + "or excluded.max_weight > progress_daily_rollups.max_weight then excluded.max_weight_reps "
+            + "else progress_daily_rollups.max_weight_reps end, "
+            + "max_weight = greatest(progress_daily_rollups.max_weight, excluded.max_weight), "
+            + "best_e1rm = greatest(progress_daily_rollups.best_e1rm, excluded.best_e1rm)";
+
+    // Строки секции исчезают из списков, изменений и рядов (их заменяют агрегаты): кэш ответов с ETag устаревает
+    private static final String BUMP_VERSIONS_SQL = "insert into user_data_versions (username, version) "
+            + "select distinct t.username, 1 from %s t where t.username is not null "
+            + "on conflict (username) do update set version = user_data_versions.version + 1";
+
+    private final DataSource dataSource;
+    private final int monthsAhead;
+    private final int rollupAfterMonths;
+    private final long lockTimeoutMs;
+    private final int lockAttempts;
+
+    public ProgressPartitionMaintenance(DataSource dataSource,
+                                        @Value("${progress.partitions.months-ahead:3}") int monthsAhead,
+                                        @Value("${progress.partitions.rollup-after-months:0}") int rollupAfterMonths,
+                                        @Value("${progress.partitions.lock-timeout-ms:2000}") long lockTimeoutMs,
+                                        @Value("${progress.partitions.lock-attempts:5}") int lockAttempts) {
+        this.dataSource = dataSource;
+        this.monthsAhead = monthsAhead;
+        this.rollupAfterMonths = rollupAfterMonths;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.lockAttempts = lockAttempts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(initialDelayString = "${progress.partitions.maintenance-interval-ms:86400000}",
+            fixedDelayString = "${progress.partitions.maintenance-interval-ms:86400000}")
+    public void maintain() {
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, ADVISORY_LOCK_KEY))) {
+                // Обслуживание выполняет другой экземпляр
+                return;
+            }
+            try {
+                maintain(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())));
+            } finally {
+                // Соединение возвращается в пул, а не закрывается: блокировку сессии нужно снять явно
+                jdbcTemplate.queryForObject("select pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+            }
+        } catch (SQLException | DataAccessException e) {
+            System.err.println("[ERROR] Progress partition maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void maintain(JdbcTemplate jdbcTemplate, TransactionTemplate transaction) {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate partitionMonth = month.plusMonths(i);
+            try {
+                // CREATE TABLE ... PARTITION OF берёт исключительную блокировку progress
+                withLockTimeout(jdbcTemplate, transaction, () -> jdbcTemplate.execute(String.format(
+                        "create table if not exists %s partition of progress for values from ('%s') to ('%s')",
+                        partitionName(partitionMonth), partitionMonth, partitionMonth.plusMonths(1))));
+            } catch (Exception e) {
+                System.err.println("[ERROR] Failed to create progress partition for " + partitionMonth + ": " + e.getMessage());
+            }
+        }
+        // Остатки прошлых запусков: прерванное отсоединение и отсоединённые, но не свёрнутые таблицы
+        for (String partition : pendingDetachPartitions(jdbcTemplate)) {
+            try {
+                jdbcTemplate.execute("alter table progress detach partition " + partition + " finalize");
+            } catch (Exception e) {
+                System.err.println("[ERROR] Failed to finish detaching progress partition " + partition + ": " + e.getMessage());
+            }
+        }
+        for (String table : detachedTables(jdbcTemplate)) {
+            rollUp(jdbcTemplate, transaction, table);
+        }
+        if (rollupAfterMonths <= 0) {
+            return;
+        }
+        LocalDate cutoff = month.minusMonths(rollupAfterMonths);
+        for (String partition : partitions(jdbcTemplate)) {
+            LocalDate partitionMonth = monthOf(partition);
+            if (partitionMonth == null || !partitionMonth.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                // Вне транзакции: CONCURRENTLY недопустим в блоке транзакции
+                jdbcTemplate.execute("alter table progress detach partition " + partition + " concurrently");
+            } catch (Exception e) {
+                System.err.println("[ERROR] Failed to detach progress partition " + partition + ": " + e.getMessage());
+                continue;
+            }
+            rollUp(jdbcTemplate, transaction, partition);
+        }
+    }
+
+    // Свёртка и удаление отсоединённой таблицы - одна транзакция: таблица либо свёрнута и удалена, либо осталась целиком.
+    // Версии пользователей повышаются в начале, как при записи прогресса
+    private void rollUp(JdbcTemplate jdbcTemplate, TransactionTemplate transaction, String table) {
+        try {
+            withLockTimeout(jdbcTemplate, transaction, () -> {
+                jdbcTemplate.update(String.format(BUMP_VERSIONS_SQL, table));
+                jdbcTemplate.update(String.format(ROLLUP_SQL, table));
+                jdbcTemplate.execute("drop table " + table);
+            });
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to roll up progress partition " + table + ": " + e.getMessage());
+        }
+    }
+
+    // Транзакция, которая ждёт блокировку не дольше lock-timeout-ms, а не встаёт в очередь перед всеми запросами
+    // к таблице; при таймауте повторяется до lock-attempts раз
+    private void withLockTimeout(JdbcTemplate jdbcTemplate, TransactionTemplate transaction, Runnable action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("set local lock_timeout = " + lockTimeoutMs);
+                    action.run();
+                });
+                return;
+            } catch (DataAccessException e) {
+                if (!isLockTimeout(e) || attempt >= lockAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Spring не переводит lock_not_available PostgreSQL в отдельное исключение
+    private static boolean isLockTimeout(DataAccessException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException && "55P03".equals(sqlException.getSQLState());
+    }
+
+    private List<String> partitions(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                + "join pg_class parent on parent.oid = i.inhparent where parent.relname = 'progress' "
+                + "and not i.inhdetachpending order by c.relname", String.class);
+    }
+
+    private List<String> pendingDetachPartitions(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                + "join pg_class parent on parent.oid = i.inhparent where parent.relname = 'progress' "
+                + "and i.inhdetachpending order by c.relname", String.class);
+    }
+
+    // Обычные таблицы с именем месячной секции, которые уже не секции progress
+    private List<String> detachedTables(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("select c.relname from pg_class c where c.relkind = 'r' and not c.relispartition "
+                + "and c.relnamespace = current_schema()::regnamespace and c.relname ~ '^progress_p[0-9]{4}_[0-9]{2}$' "
+                + "order by c.relname", String.class);
+    }
+
+    static String partitionName(LocalDate month) {
+        return PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+
+    // Первое число месяца секции progress_pYYYY_MM; null - не месячная секция (например, progress_default)
+    static LocalDate monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()) + "_01", DateTimeFormatter.ofPattern("yyyy_MM_dd"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
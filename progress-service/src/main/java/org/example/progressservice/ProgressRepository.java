@@ -1,9 +1,74 @@
 package org.example.progressservice;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface ProgressRepository extends JpaRepository<Progress, Long> {
-    List<Progress> findByUsername(String username);
+    // Диапазон дат отсекает ненужные месячные секции progress
+    @Query("select p from Progress p where p.username = :username and p.date >= :from and p.date < :to order by p.date, p.id")
+    List<Progress> findByUsernameAndDateRange(@Param("username") String username, @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    // Курсор PostgreSQL читает порциями только внутри транзакции
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from Progress p where p.username = :username order by p.id")
+    Stream<Progress> streamByUsernameOrderById(@Param("username") String username);
+
+    // Агрегаты по неделям или месяцам за [from, to): из строк progress (только секции диапазона)
+    // и из дневных агрегатов уже свёрнутых секций
+    @Query(value = "select date_trunc(:bucket, l.date::timestamp) as bucketStart, max(l.weight) as maxWeight, "
+            + "coalesce(sum(l.reps), 0) as totalReps, coalesce(sum(l.volume), 0) as volume, sum(l.sets) as sets "
+            + "from (select p.date, p.weight, p.repetitions as reps, p.weight::bigint * p.repetitions as volume, 1 as sets "
+            + "from progress p where p.username = :username and p.exercise_id = :exerciseId "
+            + "and p.date >= :from and p.date < :to "
+            + "union all select r.day, r.max_weight, r.total_reps, r.total_volume, r.sets from progress_daily_rollups r "
+            + "where r.username = :username and r.exercise_id = :exerciseId and r.day >= :from and r.day < :to) l "
+            + "group by 1 order by 1", nativeQuery = true)
+    List<ProgressSeriesRow> aggregateSeries(@Param("username") String username, @Param("exerciseId") Integer exerciseId,
+                                            @Param("bucket") String bucket, @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    // Лучший вес каждого пользователя в каждом упражнении с даты from, включая свёрнутые дни; при равенстве - самая ранняя дата.
+    // Курсор PostgreSQL читает порциями только внутри транзакции
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select distinct on (l.exercise_id, l.username) l.exercise_id as exerciseId, "
+            + "l.username as username, l.weight as weight, l.date as date "
+            + "from (select p.exercise_id, p.username, p.weight, p.date from progress p "
+            + "where p.date >= :from and p.weight is not null and p.exercise_id is not null and p.username is not null "
+            + "union all select r.exercise_id, r.username, r.max_weight, r.day from progress_daily_rollups r "
+            + "where r.day >= :from and r.max_weight is not null) l "
+            + "order by l.exercise_id, l.username, l.weight desc, l.date", nativeQuery = true)
+    Stream<BestLiftRow> streamBestLiftsSince(@Param("from") LocalDate from);
+
+    // Первые limit мест таблицы лидеров упражнения с даты from
+    @Query(value = "select * from (select distinct on (l.username) l.exercise_id as exerciseId, "
+            + "l.username as username, l.weight as weight, l.date as date "
+            + "from (select p.exercise_id, p.username, p.weight, p.date from progress p "
+            + "where p.exercise_id = :exerciseId and p.date >= :from and p.weight is not null and p.username is not null "
+            + "union all select r.exercise_id, r.username, r.max_weight, r.day from progress_daily_rollups r "
+            + "where r.exercise_id = :exerciseId and r.day >= :from and r.max_weight is not null) l "
+            + "order by l.username, l.weight desc, l.date) best "
+            + "order by best.weight desc, best.date, best.username limit :limit", nativeQuery = true)
+    List<BestLiftRow> findBestLiftsSince(@Param("exerciseId") Integer exerciseId, @Param("from") LocalDate from,
+                                         @Param("limit") int limit);
+
+    // Включая пользователей, чья история целиком свёрнута в progress_daily_rollups
+    @Query(value = "select p.username from progress p where p.username is not null "
+            + "union select r.username from progress_daily_rollups r", nativeQuery = true)
+    List<String> findDistinctUsernames();
+
+    @Query(value = "select * from progress p where p.username = :username and p.change_seq > :since "
+            + "order by p.change_seq limit :limit", nativeQuery = true)
+    List<Progress> findChangedSince(@Param("username") String username, @Param("since") long since,
+                                    @Param("limit") int limit);
 }
@@ -9,15 +9,17 @@ public class ProgressResponse {
     private Integer repetitions;
     private LocalDate date;
     private String username;
+    private Long changeSeq;
     private String errorMessage;
 
-    public ProgressResponse(Progress progress) {
+    public ProgressResponse(Progress progress, String exerciseName) {
         this.id = progress.getId();
-        this.exerciseName = progress.getExerciseName();
+        this.exerciseName = exerciseName;
         this.weight = progress.getWeight();
         this.repetitions = progress.getRepetitions();
         this.date = progress.getDate();
         this.username = progress.getUsername();
+        this.changeSeq = progress.getChangeSeq();
     }
 
     public ProgressResponse(String errorMessage) {
@@ -36,6 +38,8 @@ public class ProgressResponse {
     public void setDate(LocalDate date) { this.date = date; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
 }
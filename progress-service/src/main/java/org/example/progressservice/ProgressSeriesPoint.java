@@ -0,0 +1,25 @@
+package org.example.progressservice;
+
+import java.time.LocalDate;
+
+public class ProgressSeriesPoint {
+    private LocalDate bucketStart;
+    private Integer maxWeight;
+    private long totalReps;
+    private long volume;
+    private long sets;
+
+    ProgressSeriesPoint(ProgressSeriesRow row) {
+        this.bucketStart = row.getBucketStart().toLocalDate();
+        this.maxWeight = row.getMaxWeight();
+        this.totalReps = row.getTotalReps();
+        this.volume = row.getVolume();
+        this.sets = row.getSets();
+    }
+
+    public LocalDate getBucketStart() { return bucketStart; }
+    public Integer getMaxWeight() { return maxWeight; }
+    public long getTotalReps() { return totalReps; }
+    public long getVolume() { return volume; }
+    public long getSets() { return sets; }
+}
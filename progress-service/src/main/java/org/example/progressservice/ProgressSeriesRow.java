@@ -0,0 +1,11 @@
+package org.example.progressservice;
+
+import java.time.LocalDateTime;
+
+public interface ProgressSeriesRow {
+    LocalDateTime getBucketStart();
+    Integer getMaxWeight();
+    long getTotalReps();
+    long getVolume();
+    long getSets();
+}
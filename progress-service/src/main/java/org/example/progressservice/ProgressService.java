@@ -0,0 +1,148 @@
+package org.example.progressservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Все записи прогресса идут через этот сервис, чтобы версия данных пользователя менялась в той же транзакции.
+// Версия повышается до записи: строка user_data_versions блокируется раньше, чем триггер выдаст change_seq,
+// поэтому изменения одного пользователя коммитятся в порядке их change_seq и клиент синхронизации
+// не пропустит запись, закоммиченную позже выданного ему токена.
+@Service
+public class ProgressService {
+
+    static final String TOMBSTONES_PURGED_THROUGH = "progress_tombstones.purged_through";
+
+    private final ProgressRepository progressRepository;
+    private final UserDataVersionRepository versionRepository;
+    private final ProgressTombstoneRepository tombstoneRepository;
+    private final SyncStateRepository syncStateRepository;
+    private final ExerciseSummaryRepository summaryRepository;
+    private final ExerciseCatalog exerciseCatalog;
+    private final Duration tombstoneRetention;
+
+    public ProgressService(ProgressRepository progressRepository, UserDataVersionRepository versionRepository,
+                          ProgressTombstoneRepository tombstoneRepository, SyncStateRepository syncStateRepository,
+                          ExerciseSummaryRepository summaryRepository, ExerciseCatalog exerciseCatalog,
+                          @Value("${progress.sync.tombstone-retention:90d}") Duration tombstoneRetention) {
+        this.progressRepository = progressRepository;
+        this.versionRepository = versionRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.summaryRepository = summaryRepository;
+        this.exerciseCatalog = exerciseCatalog;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    // Сводка по упражнению обновляется в той же транзакции
+    @Transactional
+    public Progress save(Progress progress) {
+        versionRepository.bump(progress.getUsername());
+        Progress saved = progressRepository.save(progress);
+        if (saved.getExerciseId() != null) {
+            ExerciseSummary summary = summaryRepository
+                    .findById(new ExerciseSummaryId(saved.getUsername(), saved.getExerciseId()))
+                    .orElseGet(() -> new ExerciseSummary(saved.getUsername(), saved.getExerciseId()));
+            summary.record(saved);
+            summaryRepository.save(summary);
+        }
+        return saved;
+    }
+
+    // Удалённая запись; пусто, если записи нет или она чужая
+    @Transactional
+    public Optional<Progress> delete(String username, Long id) {
+        Optional<Progress> progress = progressRepository.findById(id)
+                .filter(found -> username.equals(found.getUsername()));
+        if (progress.isEmpty()) {
+            return progress;
+        }
+        versionRepository.bump(username);
+        progressRepository.delete(progress.get());
+        // Удалённая запись могла быть рекордом: упражнение пересчитывается из оставшихся строк
+        if (progress.get().getExerciseId() != null) {
+            summaryRepository.deleteSummaries(username, progress.get().getExerciseId());
+            summaryRepository.rebuild(username, progress.get().getExerciseId());
+        }
+        return progress;
+    }
+
+    public List<ExerciseSummary> getSummaries(String username) {
+        return summaryRepository.findByUsername(username);
+    }
+
+    // Пересчёт сводки пользователя из исходных строк; exerciseId = null - все упражнения.
+    // Блокировка версии пользователя не даёт параллельной записи прогресса изменить сводку посередине.
+    // Версия повышается, только если сводка изменилась: ежедневный пересчёт не сбрасывает ETag всем клиентам
+    @Transactional
+    public void rebuildSummaries(String username, Integer exerciseId) {
+        versionRepository.lock(username);
+        String before = summaryRepository.digest(username, exerciseId);
+        summaryRepository.deleteSummaries(username, exerciseId);
+        summaryRepository.rebuild(username, exerciseId);
+        if (!before.equals(summaryRepository.digest(username, exerciseId))) {
+            versionRepository.bump(username);
+        }
+    }
+
+    // Изменения после токена since в порядке change_seq; since = 0 - первая синхронизация.
+    // Пустой Optional - нужные tombstone уже удалены и клиенту нужна полная синхронизация
+    @Transactional(readOnly = true)
+    public Optional<ChangesResponse<ProgressResponse>> changesSince(String username, long since, int limit) {
+        long purgedThrough = syncStateRepository.findById(TOMBSTONES_PURGED_THROUGH).map(SyncState::getValue).orElse(0L);
+        if (since > 0 && since < purgedThrough) {
+            return Optional.empty();
+        }
+        // Берём по limit + 1 из обоих источников и сливаем по change_seq
+        List<Progress> changed = progressRepository.findChangedSince(username, since, limit + 1);
+        List<ProgressTombstone> deleted = tombstoneRepository
+                .findByUsernameAndChangeSeqGreaterThanOrderByChangeSeqAsc(username, since, Limit.of(limit + 1));
+
+        List<ProgressResponse> pageChanged = new ArrayList<>();
+        List<Long> pageDeleted = new ArrayList<>();
+        long next = since;
+        int c = 0;
+        int d = 0;
+        while (c + d < limit && (c < changed.size() || d < deleted.size())) {
+            if (d == deleted.size() || (c < changed.size() && changed.get(c).getChangeSeq() < deleted.get(d).getChangeSeq())) {
+                Progress progress = changed.get(c++);
+                pageChanged.add(new ProgressResponse(progress, exerciseCatalog.nameOf(progress.getExerciseId())));
+                next = progress.getChangeSeq();
+            } else {
+                ProgressTombstone tombstone = deleted.get(d++);
+                pageDeleted.add(tombstone.getId());
+                next = tombstone.getChangeSeq();
+            }
+        }
+        boolean hasMore = c < changed.size() || d < deleted.size();
+        return Optional.of(new ChangesResponse<>(pageChanged, pageDeleted, next, hasMore));
+    }
+
+    // Старые tombstone удаляются; запоминаем наибольший удалённый номер, чтобы отвечать 410 на более старые токены
+    @Scheduled(fixedDelayString = "${progress.sync.purge-interval-ms:3600000}", initialDelayString = "${progress.sync.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeTombstones() {
+        Long purgedThrough = tombstoneRepository.findMaxChangeSeqDeletedBefore(Instant.now().minus(tombstoneRetention));
+        if (purgedThrough == null) {
+            return;
+        }
+        SyncState state = syncStateRepository.findById(TOMBSTONES_PURGED_THROUGH).orElseGet(() -> {
+            SyncState created = new SyncState();
+            created.setName(TOMBSTONES_PURGED_THROUGH);
+            return created;
+        });
+        if (purgedThrough > state.getValue()) {
+            state.setValue(purgedThrough);
+            syncStateRepository.save(state);
+        }
+        tombstoneRepository.deleteUpTo(purgedThrough);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.progressservice;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Периодически пересчитывает сводки всех пользователей из исходных строк, исправляя возможные расхождения
+// (ручные правки в БД, сводки, появившиеся до миграции). Каждый пользователь - отдельная транзакция
+@Component
+public class ProgressSummaryRebuilder {
+
+    private final ProgressRepository progressRepository;
+    private final ProgressService progressService;
+
+    public ProgressSummaryRebuilder(ProgressRepository progressRepository, ProgressService progressService) {
+        this.progressRepository = progressRepository;
+        this.progressService = progressService;
+    }
+
+    @Scheduled(fixedDelayString = "${progress.summary.rebuild-interval-ms:86400000}",
+            initialDelayString = "${progress.summary.initial-delay-ms:60000}")
+    public void rebuildAll() {
+        for (String username : progressRepository.findDistinctUsernames()) {
+            try {
+                progressService.rebuildSummaries(username, null);
+            } catch (Exception e) {
+                System.err.println("[ERROR] Failed to rebuild progress summary for " + username + ": " + e.getMessage());
+            }
+        }
+    }
+}
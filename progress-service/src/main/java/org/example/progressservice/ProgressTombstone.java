@@ -0,0 +1,35 @@
+package org.example.progressservice;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Пишется триггером БД при удалении записи прогресса; приложение только читает и чистит по сроку хранения
+@Entity
+@Table(name = "progress_tombstones")
+public class ProgressTombstone {
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private String username;
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.progressservice;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProgressTombstoneRepository extends JpaRepository<ProgressTombstone, Long> {
+    List<ProgressTombstone> findByUsernameAndChangeSeqGreaterThanOrderByChangeSeqAsc(String username, long since, Limit limit);
+
+    @Query("select max(t.changeSeq) from ProgressTombstone t where t.deletedAt < :cutoff")
+    Long findMaxChangeSeqDeletedBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from ProgressTombstone t where t.changeSeq <= :changeSeq")
+    int deleteUpTo(@Param("changeSeq") long changeSeq);
+}
@@ -1,5 +1,6 @@
 package org.example.progressservice;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -24,6 +25,7 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Завершение потоковых ответов (экспорт, SSE), запрос уже проверен
                         .requestMatchers("/api/progress/**").authenticated() // Требуем токен для всех запросов к /api/workouts/**
                         .requestMatchers("/error").permitAll() // Для отладки ошибок
                         .anyRequest().permitAll() // Другие запросы не требуют аутентификации
@@ -0,0 +1,29 @@
+package org.example.progressservice;
+
+import jakarta.persistence.*;
+
+// Служебные значения синхронизации (например, до какого номера изменений удалены tombstone)
+@Entity
+@Table(name = "sync_state")
+public class SyncState {
+    @Id
+    private String name;
+    @Column(nullable = false)
+    private long value;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.progressservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SyncStateRepository extends JpaRepository<SyncState, String> {
+}
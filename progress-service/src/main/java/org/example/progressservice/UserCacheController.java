@@ -0,0 +1,39 @@
+package org.example.progressservice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Вытеснение пользователей из UserExistenceCache; вызывается user-service после удаления пользователя
+@RestController
+@RequestMapping("/api/progress/internal/users")
+public class UserCacheController {
+
+    private final UserExistenceCache userExistenceCache;
+
+    public UserCacheController(UserExistenceCache userExistenceCache) {
+        this.userExistenceCache = userExistenceCache;
+    }
+
+    @PostMapping("/evict")
+    public ResponseEntity<String> evict(@RequestBody UserEvictionRequest request, Authentication authentication) {
+        if (authentication == null || authentication.getAuthorities().stream()
+                .noneMatch(authority -> authority.getAuthority().equals("ROLE_SERVICE"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Service role required");
+        }
+        if (request.getUsernames() != null) {
+            userExistenceCache.evict(request.getUsernames());
+        }
+        return ResponseEntity.ok("Evicted");
+    }
+}
+
+class UserEvictionRequest {
+    private List<String> usernames;
+
+    public List<String> getUsernames() { return usernames; }
+    public void setUsernames(List<String> usernames) { this.usernames = usernames; }
+}
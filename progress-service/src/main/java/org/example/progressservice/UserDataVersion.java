@@ -0,0 +1,29 @@
+package org.example.progressservice;
+
+import jakarta.persistence.*;
+
+// Версия данных пользователя: увеличивается при каждой записи, отдаётся клиентам как ETag списков
+@Entity
+@Table(name = "user_data_versions")
+public class UserDataVersion {
+    @Id
+    private String username;
+    @Column(nullable = false)
+    private long version;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.progressservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserDataVersionRepository extends JpaRepository<UserDataVersion, String> {
+
+    // Вызывается в транзакции записи: версия меняется только вместе с данными
+    @Modifying
+    @Query(value = "insert into user_data_versions (username, version) values (:username, 1) "
+            + "on conflict (username) do update set version = user_data_versions.version + 1", nativeQuery = true)
+    void bump(@Param("username") String username);
+
+    // Блокирует строку версии до конца транзакции, не меняя её: do update с ложным условием не обновляет строку,
+    // но блокирует её так же, как bump. Для пересчётов, которые повышают версию, только если данные изменились
+    @Modifying
+    @Query(value = "insert into user_data_versions (username, version) values (:username, 0) "
+            + "on conflict (username) do update set version = user_data_versions.version where false", nativeQuery = true)
+    void lock(@Param("username") String username);
+
+    default long currentVersion(String username) {
+        return findById(username).map(UserDataVersion::getVersion).orElse(0L);
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.progressservice;
+
+import feign.FeignException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Локальная проверка существования пользователя перед записью, чтобы не ходить в user-service на каждый запрос.
+// Подтверждённые пользователи живут в TTL-кэше, известные имена - в bloom filter. Фильтр раз в rebuild-interval
+// перестраивается чтением всех пользователей user-service, а между перестройками дочитывает только новых
+// (id больше последнего прочитанного). Удалённые пользователи приходят через evict() и до следующей перестройки
+// фильтра всегда проверяются удалённо; если их набирается больше max-size, фильтр сбрасывается целиком.
+@Component
+public class UserExistenceCache {
+
+    private final UserServiceClient userClient;
+    private final JwtUtil jwtUtil;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final int pageSize;
+    private final double bloomFpp;
+    private final long rebuildIntervalNanos;
+
+    private final ConcurrentHashMap<String, Long> confirmed = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter knownUsers;
+    // Последний id, прочитанный в фильтр, и время полной перестройки; меняются только в refresh()
+    private Long lastUserId;
+    private long rebuiltAt;
+    // Растёт при сбросе фильтра из evict(): перестройка, начатая до сброса, свой фильтр не ставит
+    private final AtomicLong resets = new AtomicLong();
+
+    public UserExistenceCache(UserServiceClient userClient,
+                              JwtUtil jwtUtil,
+                              @Value("${users.existence.ttl:10m}") Duration ttl,
+                              @Value("${users.existence.max-size:100000}") int maxSize,
+                              @Value("${users.existence.refresh-page-size:200}") int pageSize,
+                              @Value("${users.existence.bloom-fpp:0.01}") double bloomFpp,
+                              @Value("${users.existence.rebuild-interval:24h}") Duration rebuildInterval) {
+        this.userClient = userClient;
+        this.jwtUtil = jwtUtil;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.pageSize = pageSize;
+        this.bloomFpp = bloomFpp;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+    }
+
+    // true - пользователь есть; удалённый вызов только если имя не подтверждено и не попало в фильтр
+    public boolean exists(String username, String authHeader) {
+        if (!removed.contains(username)) {
+            Long expiresAt = confirmed.get(username);
+            if (expiresAt != null && expiresAt - System.nanoTime() > 0) {
+                return true;
+            }
+            BloomFilter filter = knownUsers;
+            if (filter != null && filter.mightContain(username)) {
+                return true;
+            }
+        }
+
+        UserDto user;
+        try {
+            user = userClient.getUserByUsername(username, authHeader);
+        } catch (FeignException.NotFound e) {
+            return false;
+        }
+        if (user == null) {
+            return false;
+        }
+        confirm(username);
+        return true;
+    }
+
+    public void evict(Collection<String> usernames) {
+        for (String username : usernames) {
+            removed.add(username);
+            confirmed.remove(username);
+        }
+        if (removed.size() > maxSize) {
+            // Перестройка давно не удаётся: вместо растущего списка удалённых - без фильтра до следующей
+            resets.incrementAndGet();
+            knownUsers = null;
+            removed.clear();
+            System.err.println("[ERROR] Too many removed users since last rebuild, known users filter dropped");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${users.existence.initial-delay-ms:10000}",
+            fixedDelayString = "${users.existence.refresh-interval-ms:900000}")
+    public void refresh() {
+        BloomFilter filter = knownUsers;
+        if (filter == null || System.nanoTime() - rebuiltAt >= rebuildIntervalNanos || filter.expectedFpp() > bloomFpp) {
+            rebuild();
+        } else {
+            readNewUsers(filter);
+        }
+    }
+
+    private void rebuild() {
+        // Удаления, пришедшие во время перестройки, могли не попасть в прочитанные страницы - их не сбрасываем
+        long resetsBefore = resets.get();
+        Set<String> removedBefore = new HashSet<>(removed);
+        Set<String> usernames = new HashSet<>();
+        Long lastId;
+        try {
+            lastId = readUsers(null, user -> usernames.add(user.getUsername()));
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to refresh known users: " + e.getMessage());
+            return;
+        }
+
+        // Запас по ёмкости под пользователей, которые появятся до следующей перестройки
+        BloomFilter filter = BloomFilter.create(Math.max(usernames.size() * 2L, 10_000), bloomFpp);
+        usernames.forEach(filter::put);
+        if (resets.get() != resetsBefore) {
+            return;
+        }
+        knownUsers = filter;
+        lastUserId = lastId;
+        rebuiltAt = System.nanoTime();
+        removed.removeAll(removedBefore);
+        System.out.println("[DEBUG] Known users refreshed: " + usernames.size());
+    }
+
+    // Новые пользователи после последнего прочитанного id - обычно одна неполная страница
+    private void readNewUsers(BloomFilter filter) {
+        try {
+            lastUserId = readUsers(lastUserId, user -> filter.put(user.getUsername()));
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to read new users: " + e.getMessage());
+        }
+    }
+
+    // Читает страницы после курсора, возвращает id последнего прочитанного пользователя
+    private Long readUsers(Long cursor, Consumer<UserDto> consumer) {
+        String token = "Bearer " + jwtUtil.generateToken("progress-service", List.of("SERVICE"));
+        Long lastId = cursor;
+        do {
+            ResponseEntity<List<UserDto>> page = userClient.getUsers(cursor, pageSize, token);
+            if (page.getBody() != null) {
+                for (UserDto user : page.getBody()) {
+                    consumer.accept(user);
+                    if (user.getId() != null) {
+                        lastId = user.getId();
+                    }
+                }
+            }
+            String next = page.getHeaders().getFirst(UserServiceClient.NEXT_CURSOR_HEADER);
+            cursor = next == null ? null : Long.valueOf(next);
+        } while (cursor != null);
+        return lastId;
+    }
+
+    private void confirm(String username) {
+        if (confirmed.size() >= maxSize) {
+            long now = System.nanoTime();
+            confirmed.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+            if (confirmed.size() >= maxSize) {
+                confirmed.clear();
+            }
+        }
+        confirmed.put(username, System.nanoTime() + ttlNanos);
+        removed.remove(username);
+        BloomFilter filter = knownUsers;
+        if (filter != null) {
+            filter.put(username);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.progressservice;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Кэш уже проверенных токенов: ключ - SHA-256 токена, запись живёт до exp самого токена
+class VerifiedClaimsCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, VerifiedClaims> entries = new ConcurrentHashMap<>();
+
+    VerifiedClaimsCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    VerifiedClaims get(String digest) {
+        VerifiedClaims claims = entries.get(digest);
+        if (claims == null) {
+            return null;
+        }
+        if (claims.isExpired(Instant.now())) {
+            entries.remove(digest, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    void put(String digest, VerifiedClaims claims) {
+        if (maxSize <= 0 || claims.getExpiresAt() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(digest, claims);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Instant now = Instant.now();
+        entries.values().removeIf(claims -> claims.isExpired(now));
+        // Все записи ещё живые - освобождаем десятую часть, чтобы не упираться в лимит на каждом put
+        int toDrop = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toDrop-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Схема, которую раньше создавал Hibernate (ddl-auto=update); на существующей БД ничего не меняет
+create table if not exists progress (
+    id            bigint generated by default as identity primary key,
+    exercise_name varchar(255),
+    weight        integer,
+    repetitions   integer,
+    date          date,
+    username      varchar(255)
+);
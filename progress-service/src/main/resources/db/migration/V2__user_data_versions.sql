@@ -0,0 +1,5 @@
+-- Счётчик изменений данных пользователя для ETag: условный GET сводится к чтению одной строки
+create table if not exists user_data_versions (
+    username varchar(255) primary key,
+    version  bigint not null
+);
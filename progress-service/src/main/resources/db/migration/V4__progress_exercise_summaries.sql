@@ -0,0 +1,22 @@
+-- Сводка по упражнению пользователя: рекорды, оценка 1ПМ и объём. Обновляется в транзакции записи прогресса,
+-- поэтому чтение не сканирует историю; пересчёт из исходных строк - ExerciseSummaryRepository.rebuild
+-- (вызывается из ProgressService.rebuildSummaries)
+create table if not exists progress_exercise_summaries (
+    username         varchar(255) not null,
+    exercise_name    varchar(255) not null,
+    best_weight      integer,
+    best_weight_reps integer,
+    best_weight_date date,
+    best_e1rm        double precision,
+    best_e1rm_date   date,
+    total_sets       bigint not null default 0,
+    total_reps       bigint not null default 0,
+    total_volume     bigint not null default 0,
+    week_start       date,
+    week_volume      bigint not null default 0,
+    last_date        date,
+    primary key (username, exercise_name)
+);
+
+-- Пересчёт одного упражнения после удаления записи читает только его строки
+create index if not exists idx_progress_username_exercise_name on progress (username, exercise_name);
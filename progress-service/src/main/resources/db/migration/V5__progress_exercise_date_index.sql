@@ -0,0 +1,2 @@
+-- Лучшие веса по упражнению за окно для таблиц лидеров (Leaderboard)
+create index if not exists idx_progress_exercise_name_date on progress (exercise_name, date) include (username, weight);
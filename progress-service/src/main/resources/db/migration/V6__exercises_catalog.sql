@@ -0,0 +1,67 @@
+-- Справочник упражнений: progress хранит integer id вместо повторяющейся строки.
+-- Ключ упражнения - название без лишних пробелов в нижнем регистре; считается только этой функцией,
+-- чтобы миграция и приложение (ExerciseRepository) нормализовали одинаково
+create or replace function exercise_key(name text) returns text as $$
+    select lower(btrim(regexp_replace(name, '\s+', ' ', 'g')))
+$$ language sql immutable;
+
+create table if not exists exercises (
+    id              integer generated by default as identity primary key,
+    name            varchar(255) not null,
+    normalized_name varchar(255) not null unique
+);
+
+-- Отображаемое название - первое встреченное написание
+insert into exercises (name, normalized_name)
+select distinct on (exercise_key(p.exercise_name)) btrim(regexp_replace(p.exercise_name, '\s+', ' ', 'g')),
+       exercise_key(p.exercise_name)
+from progress p
+where exercise_key(p.exercise_name) <> ''
+order by exercise_key(p.exercise_name), p.id
+on conflict (normalized_name) do nothing;
+
+alter table progress add column if not exists exercise_id integer references exercises (id);
+
+-- Смена представления не должна заставлять клиентов синхронизации перекачивать всю историю
+alter table progress disable trigger progress_change_seq;
+update progress p set exercise_id = e.id from exercises e where e.normalized_name = exercise_key(p.exercise_name);
+alter table progress enable trigger progress_change_seq;
+
+-- ...кроме строк, у которых название после нормализации изменилось: они получают новый change_seq
+update progress p set exercise_id = p.exercise_id
+where p.exercise_name is distinct from (select e.name from exercises e where e.id = p.exercise_id);
+
+-- Сводки пересчитываются по id: разные написания одного упражнения сливаются
+truncate progress_exercise_summaries;
+alter table progress_exercise_summaries drop constraint progress_exercise_summaries_pkey;
+alter table progress_exercise_summaries drop column exercise_name;
+alter table progress_exercise_summaries add column exercise_id integer not null references exercises (id);
+alter table progress_exercise_summaries add primary key (username, exercise_id);
+
+-- Индексы по exercise_name удаляются вместе с колонкой
+alter table progress drop column exercise_name;
+create index if not exists idx_progress_username_exercise_id on progress (username, exercise_id);
+create index if not exists idx_progress_exercise_id_date on progress (exercise_id, date) include (username, weight);
+
+insert into progress_exercise_summaries (username, exercise_id, best_weight, best_weight_reps,
+    best_weight_date, best_e1rm, best_e1rm_date, total_sets, total_reps, total_volume, week_start, week_volume, last_date)
+select g.username, g.exercise_id, bw.weight, bw.repetitions, bw.date, be.e1rm, be.date,
+       g.total_sets, g.total_reps, g.total_volume, g.week_start,
+       coalesce((select sum(p.weight::bigint * p.repetitions) from progress p where p.username = g.username
+                 and p.exercise_id = g.exercise_id and p.date >= g.week_start), 0), g.last_date
+from (select p.username, p.exercise_id, count(*) as total_sets, coalesce(sum(p.repetitions), 0) as total_reps,
+             coalesce(sum(p.weight::bigint * p.repetitions), 0) as total_volume, max(p.date) as last_date,
+             date_trunc('week', max(p.date))::date as week_start
+      from progress p
+      where p.username is not null and p.exercise_id is not null
+      group by p.username, p.exercise_id) g
+left join lateral (select p.weight, p.repetitions, p.date from progress p where p.username = g.username
+                   and p.exercise_id = g.exercise_id and p.weight is not null
+                   order by p.weight desc, p.repetitions desc nulls last, p.id limit 1) bw on true
+left join lateral (select case when p.repetitions = 1 then p.weight::float8
+                   else p.weight * (1 + p.repetitions / 30.0::float8) end as e1rm, p.date from progress p
+                   where p.username = g.username and p.exercise_id = g.exercise_id and p.weight is not null
+                   and p.repetitions > 0 order by 1 desc, p.id limit 1) be on true;
+
+-- Названия упражнений в ответах могли измениться (нормализация, слияние написаний): ETag всех пользователей сбрасывается
+update user_data_versions set version = version + 1;
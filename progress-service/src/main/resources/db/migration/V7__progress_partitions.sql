@@ -0,0 +1,82 @@
+-- progress секционируется по месяцам (range по date): запросы с диапазоном дат читают только нужные секции,
+-- индексы каждой секции остаются небольшими, старые месяцы сворачиваются в дневные агрегаты
+-- (ProgressPartitionMaintenance) и удаляются целиком без DELETE.
+-- Ключ секционирования должен входить в первичный ключ и не может быть null; строки без даты
+-- (только из старых версий) получают 1970-01-01.
+alter table progress rename to progress_unpartitioned;
+alter table progress_unpartitioned drop constraint progress_pkey;
+drop index if exists idx_progress_username_change_seq;
+drop index if exists idx_progress_username_exercise_id;
+drop index if exists idx_progress_exercise_id_date;
+
+-- identity на секционированной таблице поддерживается не во всех версиях PostgreSQL: id берётся из обычной последовательности
+alter table progress_unpartitioned alter column id drop identity if exists;
+alter table progress_unpartitioned alter column id drop default;
+create sequence if not exists progress_id_seq;
+alter sequence progress_id_seq owned by none;
+select setval('progress_id_seq', coalesce((select max(id) from progress_unpartitioned), 0) + 1, false);
+
+create table progress (
+    id          bigint  not null default nextval('progress_id_seq'),
+    exercise_id integer references exercises (id),
+    weight      integer,
+    repetitions integer,
+    date        date    not null,
+    username    varchar(255),
+    change_seq  bigint  not null,
+    primary key (id, date)
+) partition by range (date);
+alter sequence progress_id_seq owned by progress.id;
+
+-- Страховка для дат вне созданных секций; в норме пуста
+create table progress_default partition of progress default;
+
+-- Секции для месяцев с данными, текущего и трёх следующих; дальше их создаёт ProgressPartitionMaintenance
+do $$
+declare
+    month date;
+begin
+    for month in
+        select distinct date_trunc('month', coalesce(p.date, date '1970-01-01'))::date from progress_unpartitioned p
+        union
+        select (date_trunc('month', current_date) + make_interval(months => i))::date from generate_series(0, 3) i
+    loop
+        execute format('create table if not exists %I partition of progress for values from (%L) to (%L)',
+                       'progress_p' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+    end loop;
+end $$;
+
+-- Триггеров на новой таблице ещё нет: change_seq переносится как есть
+insert into progress (id, exercise_id, weight, repetitions, date, username, change_seq)
+select id, exercise_id, weight, repetitions, coalesce(date, date '1970-01-01'), username, change_seq
+from progress_unpartitioned;
+
+drop table progress_unpartitioned;
+
+create index idx_progress_username_date on progress (username, date);
+create index idx_progress_username_change_seq on progress (username, change_seq);
+create index idx_progress_username_exercise_id on progress (username, exercise_id);
+create index idx_progress_exercise_id_date on progress (exercise_id, date) include (username, weight);
+
+create trigger progress_change_seq
+    before insert or update on progress
+    for each row execute function progress_set_change_seq();
+
+create trigger progress_tombstone
+    after delete on progress
+    for each row execute function progress_write_tombstone();
+
+-- Дневные агрегаты свёрнутых секций: по ним продолжают считаться сводки, ряды для графиков и таблицы лидеров
+create table if not exists progress_daily_rollups (
+    username        varchar(255) not null,
+    exercise_id     integer      not null references exercises (id),
+    day             date         not null,
+    sets            bigint       not null,
+    total_reps      bigint       not null,
+    total_volume    bigint       not null,
+    max_weight      integer,
+    max_weight_reps integer,
+    best_e1rm       double precision,
+    primary key (username, exercise_id, day)
+);
+create index if not exists idx_progress_daily_rollups_exercise_id_day on progress_daily_rollups (exercise_id, day);
@@ -0,0 +1,22 @@
+-- ProgressPartitionMaintenance отсоединяет старые секции через DETACH PARTITION ... CONCURRENTLY, а он недоступен,
+-- пока у progress есть секция по умолчанию. Даты записей выставляет сервис (текущий день), секции на months-ahead
+-- месяцев вперёд создаются заранее, поэтому секция по умолчанию не нужна; её строки переносятся в месячные секции
+alter table progress detach partition progress_default;
+
+do $$
+declare
+    month date;
+begin
+    for month in select distinct date_trunc('month', d.date)::date from progress_default d
+    loop
+        execute format('create table if not exists %I partition of progress for values from (%L) to (%L)',
+                       'progress_p' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+    end loop;
+end $$;
+
+-- Триггер выдаёт перенесённым строкам новый change_seq: клиенты синхронизации просто получат их ещё раз
+insert into progress (id, exercise_id, weight, repetitions, date, username, change_seq)
+select id, exercise_id, weight, repetitions, date, username, change_seq
+from progress_default;
+
+drop table progress_default;
@@ -0,0 +1,45 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DropOldestBufferTests {
+
+    @Test
+    void onlyFirstOfferSchedulesDrain() {
+        DropOldestBuffer<Integer> buffer = new DropOldestBuffer<>(4);
+        assertTrue(buffer.offer(1));
+        assertFalse(buffer.offer(2));
+
+        DropOldestBuffer.Batch<Integer> batch = buffer.drain();
+        assertEquals(List.of(1, 2), batch.items());
+        assertEquals(0, batch.dropped());
+        assertFalse(buffer.offer(3));
+        assertEquals(List.of(3), buffer.drain().items());
+
+        assertNull(buffer.drain());
+        assertTrue(buffer.offer(4));
+    }
+
+    @Test
+    void dropsOldestWhenFull() {
+        DropOldestBuffer<Integer> buffer = new DropOldestBuffer<>(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.offer(i);
+        }
+        DropOldestBuffer.Batch<Integer> batch = buffer.drain();
+        assertEquals(List.of(3, 4, 5), batch.items());
+        assertEquals(2, batch.dropped());
+
+        buffer.offer(6);
+        assertEquals(0, buffer.drain().dropped());
+    }
+
+    @Test
+    void rejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new DropOldestBuffer<Integer>(0));
+    }
+}
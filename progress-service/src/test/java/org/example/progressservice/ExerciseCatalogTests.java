@@ -0,0 +1,121 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExerciseCatalogTests {
+
+    // Справочник в памяти; нормализацию имитирует БД, каталог её не повторяет
+    private final Map<String, Exercise> exercisesByKey = new HashMap<>();
+    private final List<String> queries = new ArrayList<>();
+
+    private final ExerciseRepository repository = (ExerciseRepository) Proxy.newProxyInstance(
+            ExerciseRepository.class.getClassLoader(), new Class<?>[]{ExerciseRepository.class},
+            (proxy, method, args) -> {
+                queries.add(method.getName());
+                return switch (method.getName()) {
+                    case "findAll" -> new ArrayList<>(exercisesByKey.values());
+                    case "findByName" -> Optional.ofNullable(exercisesByKey.get(dbKey((String) args[0])));
+                    case "insertIfAbsent" -> {
+                        String key = dbKey((String) args[0]);
+                        if (!key.isEmpty()) {
+                            exercisesByKey.computeIfAbsent(key, k -> exercise(exercisesByKey.size() + 1, ((String) args[0]).trim(), k));
+                        }
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            });
+
+    private final PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    private final ExerciseCatalog catalog = new ExerciseCatalog(repository, transactionManager);
+
+    @Test
+    void spellingsResolveThroughDatabaseKey() {
+        Integer id = catalog.idFor("Bench Press");
+        assertEquals(id, catalog.idFor("  BENCH  press "));
+        assertEquals(1, exercisesByKey.size());
+
+        queries.clear();
+        assertEquals(id, catalog.idFor("Bench Press"));
+        assertEquals(Optional.of(id), catalog.find("  BENCH  press "));
+        assertEquals("Bench Press", catalog.nameOf(id));
+        assertTrue(queries.isEmpty(), "known spellings must not hit the database: " + queries);
+    }
+
+    @Test
+    void loadCachesDisplayNames() {
+        exercisesByKey.put("squat", exercise(7, "Squat", "squat"));
+        catalog.load();
+
+        queries.clear();
+        assertEquals(7, catalog.idFor("Squat"));
+        assertTrue(queries.isEmpty());
+        assertEquals(Optional.of(7), catalog.find("SQUAT"));
+        assertEquals(List.of("findByName"), queries);
+    }
+
+    @Test
+    void blankNamesAreNotCreated() {
+        assertNull(catalog.idFor(null));
+        assertNull(catalog.idFor("   "));
+        assertEquals(Optional.empty(), catalog.find(""));
+        assertTrue(queries.isEmpty());
+        assertTrue(exercisesByKey.isEmpty());
+    }
+
+    @Test
+    void unknownExerciseIsNotCreatedByFind() {
+        assertEquals(Optional.empty(), catalog.find("Deadlift"));
+        assertTrue(exercisesByKey.isEmpty());
+    }
+
+    private static String dbKey(String name) {
+        return name.replaceAll("\\s+", " ").trim().toLowerCase();
+    }
+
+    private static Exercise exercise(int id, String name, String normalizedName) {
+        try {
+            Exercise exercise = new Exercise();
+            set(exercise, "id", id);
+            set(exercise, "name", name);
+            set(exercise, "normalizedName", normalizedName);
+            return exercise;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void set(Exercise exercise, String field, Object value) throws ReflectiveOperationException {
+        Field f = Exercise.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(exercise, value);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExerciseSummaryTests {
+
+    private static Progress progress(Integer weight, Integer repetitions, LocalDate date) {
+        Progress progress = new Progress();
+        progress.setUsername("alice");
+        progress.setExerciseId(1);
+        progress.setWeight(weight);
+        progress.setRepetitions(repetitions);
+        progress.setDate(date);
+        return progress;
+    }
+
+    @Test
+    void estimatesOneRepMaxWithEpley() {
+        assertEquals(100.0, ExerciseSummary.estimateOneRepMax(100, 1));
+        assertEquals(100 * (1 + 10 / 30.0), ExerciseSummary.estimateOneRepMax(100, 10));
+        assertNull(ExerciseSummary.estimateOneRepMax(100, 0));
+        assertNull(ExerciseSummary.estimateOneRepMax(null, 5));
+    }
+
+    @Test
+    void tracksRecordsAndTotals() {
+        ExerciseSummary summary = new ExerciseSummary("alice", 1);
+        LocalDate monday = LocalDate.of(2024, 3, 4);
+        summary.record(progress(100, 5, monday));
+        summary.record(progress(120, 1, monday.plusDays(2)));
+        summary.record(progress(120, 2, monday.plusDays(3)));
+        summary.record(progress(110, 8, monday.plusDays(4)));
+
+        assertEquals(120, summary.getBestWeight());
+        assertEquals(2, summary.getBestWeightReps());
+        assertEquals(monday.plusDays(3), summary.getBestWeightDate());
+        assertEquals(110 * (1 + 8 / 30.0), summary.getBestE1rm());
+        assertEquals(monday.plusDays(4), summary.getBestE1rmDate());
+        assertEquals(4, summary.getTotalSets());
+        assertEquals(16, summary.getTotalReps());
+        assertEquals(500 + 120 + 240 + 880, summary.getTotalVolume());
+        assertEquals(monday.plusDays(4), summary.getLastDate());
+    }
+
+    @Test
+    void weekVolumeResetsOnNewWeek() {
+        ExerciseSummary summary = new ExerciseSummary("alice", 1);
+        LocalDate sunday = LocalDate.of(2024, 3, 10);
+        summary.record(progress(100, 5, sunday));
+        assertEquals(500, summary.volumeForWeek(LocalDate.of(2024, 3, 4)));
+
+        summary.record(progress(50, 10, sunday.plusDays(1)));
+        summary.record(progress(null, 10, sunday.plusDays(2)));
+        assertEquals(0, summary.volumeForWeek(LocalDate.of(2024, 3, 4)));
+        assertEquals(500, summary.volumeForWeek(LocalDate.of(2024, 3, 11)));
+        assertEquals(1000, summary.getTotalVolume());
+    }
+}
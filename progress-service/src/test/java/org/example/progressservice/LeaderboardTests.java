@@ -0,0 +1,125 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int BENCH = 1;
+
+    private static Progress progress(String username, int weight, LocalDate date) {
+        Progress progress = new Progress();
+        progress.setUsername(username);
+        progress.setExerciseId(BENCH);
+        progress.setWeight(weight);
+        progress.setRepetitions(1);
+        progress.setDate(date);
+        return progress;
+    }
+
+    private static List<String> usernames(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUsername).toList();
+    }
+
+    @Test
+    void keepsBestLiftPerUserAndTopN() {
+        Leaderboard leaderboard = new Leaderboard(3, 4);
+        leaderboard.record(progress("alice", 100, TODAY));
+        leaderboard.record(progress("bob", 120, TODAY));
+        leaderboard.record(progress("carol", 90, TODAY));
+        leaderboard.record(progress("alice", 95, TODAY));
+        leaderboard.record(progress("dave", 80, TODAY));
+
+        List<LeaderboardEntry> top = leaderboard.top(BENCH, Leaderboard.Window.ALL, 10);
+        assertEquals(List.of("bob", "alice", "carol"), usernames(top));
+        assertEquals(100, top.get(1).getWeight());
+
+        leaderboard.record(progress("dave", 130, TODAY));
+        assertEquals(List.of("dave", "bob", "alice"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+        assertEquals(List.of("dave"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 1)));
+        assertTrue(leaderboard.top(2, Leaderboard.Window.ALL, 10).isEmpty());
+    }
+
+    @Test
+    void windowsIgnoreOlderLifts() {
+        Leaderboard leaderboard = new Leaderboard(10, 4);
+        leaderboard.record(progress("alice", 100, TODAY.minusYears(1)));
+        leaderboard.record(progress("bob", 90, TODAY));
+
+        assertEquals(List.of("alice", "bob"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+        assertEquals(List.of("bob"), usernames(leaderboard.top(BENCH, Leaderboard.Window.MONTH, 10)));
+        assertEquals(List.of("bob"), usernames(leaderboard.top(BENCH, Leaderboard.Window.WEEK, 10)));
+    }
+
+    @Test
+    void earlierLiftWinsTie() {
+        Leaderboard leaderboard = new Leaderboard(10, 4);
+        leaderboard.record(progress("bob", 100, TODAY));
+        leaderboard.record(progress("alice", 100, TODAY.minusYears(1)));
+        assertEquals(List.of("alice", "bob"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+    }
+
+    @Test
+    void rebuildReplaysRecordsMadeDuringLoad() {
+        Leaderboard leaderboard = new Leaderboard(10, 4);
+        leaderboard.record(progress("stale", 200, TODAY));
+        leaderboard.rebuildAll(sink -> {
+            leaderboard.record(progress("bob", 110, TODAY));
+            sink.accept(Leaderboard.Window.ALL, row("alice", 100));
+        });
+        assertEquals(List.of("bob", "alice"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+    }
+
+    @Test
+    void rebuildKeepsOnlyTopNPerBoard() {
+        Leaderboard leaderboard = new Leaderboard(2, 4);
+        leaderboard.rebuildAll(sink -> {
+            sink.accept(Leaderboard.Window.ALL, row("carol", 90));
+            sink.accept(Leaderboard.Window.ALL, row("alice", 100));
+            sink.accept(Leaderboard.Window.ALL, row("dave", 80));
+            sink.accept(Leaderboard.Window.ALL, row("bob", 110));
+        });
+        assertEquals(List.of("bob", "alice"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+    }
+
+    @Test
+    void removingLiftOffTheBoardSkipsDatabase() {
+        Leaderboard leaderboard = new Leaderboard(10, 4);
+        leaderboard.record(progress("alice", 100, TODAY));
+        leaderboard.remove(progress("alice", 90, TODAY), window -> fail("loaded " + window));
+        leaderboard.remove(progress("bob", 100, TODAY), window -> fail("loaded " + window));
+        assertEquals(List.of("alice"), usernames(leaderboard.top(BENCH, Leaderboard.Window.ALL, 10)));
+    }
+
+    @Test
+    void removingBoardLiftBackfillsAndKeepsRecordsMadeDuringLoad() {
+        Leaderboard leaderboard = new Leaderboard(2, 4);
+        leaderboard.record(progress("alice", 100, TODAY));
+        leaderboard.record(progress("bob", 90, TODAY));
+
+        leaderboard.remove(progress("alice", 100, TODAY), window -> {
+            if (window == Leaderboard.Window.ALL) {
+                leaderboard.record(progress("dave", 120, TODAY.minusYears(1)));
+            }
+            return List.of(row("bob", 90), row("carol", 80), row("alice", 70));
+        });
+
+        List<LeaderboardEntry> top = leaderboard.top(BENCH, Leaderboard.Window.ALL, 10);
+        assertEquals(List.of("dave", "bob"), usernames(top));
+        assertEquals(List.of("bob", "carol"), usernames(leaderboard.top(BENCH, Leaderboard.Window.WEEK, 10)));
+    }
+
+    private static BestLiftRow row(String username, int weight) {
+        return new BestLiftRow() {
+            public Integer getExerciseId() { return BENCH; }
+            public String getUsername() { return username; }
+            public Integer getWeight() { return weight; }
+            public LocalDate getDate() { return TODAY; }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbTests {
+
+    @Test
+    void keepsAllPointsUnderThreshold() {
+        assertArrayEquals(new int[]{0, 1, 2}, Lttb.select(new double[]{1, 2, 3}, new double[]{5, 6, 7}, 10));
+        assertArrayEquals(new int[0], Lttb.select(new double[0], new double[0], 3));
+    }
+
+    @Test
+    void keepsEndpointsAndPeaks() {
+        int n = 1000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = 100;
+        }
+        y[317] = 180;
+        y[702] = 20;
+
+        int[] selected = Lttb.select(x, y, 20);
+        assertEquals(20, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(n - 1, selected[selected.length - 1]);
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i] > selected[i - 1]);
+        }
+        assertTrue(contains(selected, 317));
+        assertTrue(contains(selected, 702));
+    }
+
+    @Test
+    void rejectsTooSmallThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> Lttb.select(new double[]{1, 2, 3}, new double[]{1, 2, 3}, 2));
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.progressservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressFeedTests {
+
+    private ProgressFeed feed;
+
+    @AfterEach
+    void shutdown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void publishesOnlyToSubscribersOfTheAthlete() throws InterruptedException {
+        feed = new ProgressFeed(new ObjectMapper(), 16, 2, 5000);
+        RecordingEmitter coach = new RecordingEmitter();
+        RecordingEmitter athlete = new RecordingEmitter();
+        feed.subscribe(coach, Set.of("alice", "bob"));
+        feed.subscribe(athlete, Set.of("alice"));
+        assertEquals(2, feed.subscriberCount());
+
+        feed.publish(progress(1L, "alice"));
+        feed.publish(progress(2L, "bob"));
+        feed.publish(progress(3L, "carol"));
+
+        awaitTrue(() -> coach.events.size() == 2 && athlete.events.size() == 1);
+        assertTrue(coach.events.get(0).contains("\"id\":1"));
+        assertTrue(coach.events.get(1).contains("\"id\":2"));
+        assertTrue(athlete.events.get(0).contains("\"id\":1"));
+    }
+
+    @Test
+    void failedSendUnsubscribes() throws InterruptedException {
+        feed = new ProgressFeed(new ObjectMapper(), 16, 2, 5000);
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failure = new IOException("Broken pipe");
+        RecordingEmitter live = new RecordingEmitter();
+        feed.subscribe(gone, Set.of("alice"));
+        feed.subscribe(live, Set.of("alice"));
+
+        feed.publish(progress(1L, "alice"));
+
+        awaitTrue(() -> feed.subscriberCount() == 1 && live.events.size() == 1);
+        feed.publish(progress(2L, "alice"));
+        awaitTrue(() -> live.events.size() == 2);
+    }
+
+    @Test
+    void slowSubscriberLosesOldestEventsAndIsTold() throws InterruptedException {
+        feed = new ProgressFeed(new ObjectMapper(), 2, 1, 5000);
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockedUntil = unblock;
+        feed.subscribe(slow, Set.of("alice"));
+
+        feed.publish(progress(1L, "alice"));
+        awaitTrue(() -> slow.sending);
+        for (long id = 2; id <= 5; id++) {
+            feed.publish(progress(id, "alice"));
+        }
+        unblock.countDown();
+
+        awaitTrue(() -> slow.events.size() == 4);
+        assertTrue(slow.events.get(0).contains("\"id\":1"));
+        assertTrue(slow.events.get(1).contains("event:dropped\ndata:2"));
+        assertTrue(slow.events.get(2).contains("\"id\":4"));
+        assertTrue(slow.events.get(3).contains("\"id\":5"));
+        assertFalse(slow.completed);
+        assertEquals(1, feed.subscriberCount());
+    }
+
+    @Test
+    void stalledSendDoesNotStarveOtherSubscribers() throws InterruptedException {
+        // Один поток отправки, и он висит на зависшем клиенте
+        feed = new ProgressFeed(new ObjectMapper(), 2, 1, 50);
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter();
+        stalled.blockedUntil = unblock;
+        RecordingEmitter other = new RecordingEmitter();
+        feed.subscribe(stalled, Set.of("alice"));
+        feed.subscribe(other, Set.of("bob"));
+
+        feed.publish(progress(1L, "alice"));
+        awaitTrue(() -> stalled.sending);
+        feed.publish(progress(2L, "alice"));
+        feed.publish(progress(3L, "bob"));
+        Thread.sleep(100);
+        feed.expireStalledSends();
+
+        awaitTrue(() -> other.events.size() == 1);
+        assertEquals(1, feed.subscriberCount());
+        assertTrue(stalled.events.isEmpty());
+
+        unblock.countDown();
+        awaitTrue(() -> stalled.completed);
+        assertEquals(1, stalled.events.size());
+        feed.publish(progress(4L, "bob"));
+        awaitTrue(() -> other.events.size() == 2);
+    }
+
+    private static ProgressResponse progress(Long id, String username) {
+        Progress progress = new Progress();
+        progress.setId(id);
+        progress.setUsername(username);
+        progress.setWeight(100);
+        progress.setRepetitions(5);
+        return new ProgressResponse(progress, "Bench Press");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met in 5 s");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    // Записывает отправленные события вместо сокета; может зависнуть на первой отправке или отказать
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch blockedUntil;
+        volatile IOException failure;
+        volatile boolean sending;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            sending = true;
+            if (blockedUntil != null) {
+                try {
+                    blockedUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.progressservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressPartitionMaintenanceTests {
+
+    @Test
+    void partitionNameRoundTrips() {
+        LocalDate month = LocalDate.of(2024, 3, 1);
+        assertEquals("progress_p2024_03", ProgressPartitionMaintenance.partitionName(month));
+        assertEquals(month, ProgressPartitionMaintenance.monthOf("progress_p2024_03"));
+    }
+
+    @Test
+    void ignoresOtherPartitions() {
+        assertNull(ProgressPartitionMaintenance.monthOf("progress_default"));
+        assertNull(ProgressPartitionMaintenance.monthOf("progress_p2024_13"));
+        assertNull(ProgressPartitionMaintenance.monthOf("progress_tombstones"));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.userservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Разрешение N пользователей: N запросов GET /api/users/username/{u} против одного POST /api/users/batch.
+// Нужен запущенный стек с пользователями в БД:
+//   BENCH_BASE_URL=http://localhost:8084 BENCH_TOKEN=<JWT с ролью USER> gradle jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserLookupBenchmark {
+
+    @Param({"10", "100"})
+    public int users;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpClient client;
+    private String baseUrl;
+    private String authHeader;
+    private List<String> usernames;
+    private String batchBody;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        baseUrl = System.getenv().getOrDefault("BENCH_BASE_URL", "http://localhost:8084");
+        authHeader = "Bearer " + System.getenv().getOrDefault("BENCH_TOKEN", "");
+        client = HttpClient.newHttpClient();
+
+        JsonNode page = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users?size=" + users))
+                .header("Authorization", authHeader).GET().build()));
+        usernames = new ArrayList<>();
+        page.forEach(user -> usernames.add(user.get("username").asText()));
+        if (usernames.size() < users) {
+            throw new IllegalStateException("Need at least " + users + " users, found " + usernames.size());
+        }
+        batchBody = objectMapper.writeValueAsString(Map.of("usernames", usernames));
+    }
+
+    @Benchmark
+    public int oneAtATime() throws IOException, InterruptedException {
+        int length = 0;
+        for (String username : usernames) {
+            length += send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/username/"
+                            + URLEncoder.encode(username, StandardCharsets.UTF_8)))
+                    .header("Authorization", authHeader).GET().build()).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int batch() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/batch"))
+                .header("Authorization", authHeader)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(batchBody)).build()).length();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.userservice;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Задержка поиска по UserSearchIndex на 1M синтетических пользователей (без БД).
+// Запуск: gradle jmh -Pjmh.includes=UserSearchBenchmark (нужен heap ~2 ГБ)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Alice", "Maria", "Ivan", "Olga", "Peter", "Anna", "Dmitry",
+            "Elena", "Sergey", "Kate", "Michael", "Natalia", "Alexey", "Sofia", "Andrew"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Ivanov", "Petrova", "Brown", "Sokolov", "Garcia",
+            "Kuznetsova", "Miller", "Popov", "Wilson", "Volkova", "Taylor", "Lebedev", "Moore", "Novikova"};
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"a", "jo", "ivan", "user123", "user987654", "smith", "volkov"})
+    public String query;
+
+    private UserSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        index = new UserSearchIndex(0.5);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setUsername("user" + i);
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setEmail(firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@example.com");
+            index.put(user);
+        }
+    }
+
+    @Benchmark
+    public List<User> firstPage() {
+        return index.search(query, 0, 20);
+    }
+
+    @Benchmark
+    public List<User> tenthPage() {
+        return index.search(query, 9, 20);
+    }
+}
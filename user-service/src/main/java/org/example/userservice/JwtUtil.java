@@ -1,6 +1,8 @@
 package org.example.userservice;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,21 +11,32 @@ import org.springframework.stereotype.Component;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // Атрибут запроса, в который JwtAuthenticationFilter кладёт проверенные claims
+    public static final String CLAIMS_ATTRIBUTE = "jwt.verifiedClaims";
 
-    @Value("${jwt.expiration}")
-    private long expirationTime;
+    private final long expirationTime;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final VerifiedClaimsCache cache;
 
-    private Key getSigningKey() {
-        System.out.println("JWT Secret (UserService): " + secret);
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return new SecretKeySpec(keyBytes, SignatureAlgorithm.HS512.getJcaName());
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expirationTime,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.expirationTime = expirationTime;
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.cache = new VerifiedClaimsCache(cacheMaxSize);
     }
 
     public String generateToken(String username) {
@@ -31,29 +44,71 @@ public class JwtUtil {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    // Токен для межсервисных вызовов: роли кладутся в claim "roles"
+    public String generateToken(String username, Collection<String> roles) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("roles", roles)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    // Разбирает и проверяет подпись один раз; null - если токен невалиден или истёк
+    public VerifiedClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String digest = digest(token);
+        VerifiedClaims cached = cache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        VerifiedClaims verified = new VerifiedClaims(claims.getSubject(), extractRoles(claims),
+                expiration == null ? null : expiration.toInstant());
+        cache.put(digest, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        VerifiedClaims claims = verify(token);
+        return claims == null ? null : claims.getUsername();
     }
 
     public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    private static Set<String> extractRoles(Claims claims) {
+        Object raw = claims.get("roles");
+        if (!(raw instanceof Collection<?> values)) {
+            return Set.of();
+        }
+        Set<String> roles = new HashSet<>();
+        for (Object value : values) {
+            roles.add(String.valueOf(value));
+        }
+        return roles;
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
-
@@ -0,0 +1,153 @@
+package org.example.userservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Bloom filter по занятым именам и email: для свободной пары (самый частый случай при регистрации)
+// запрос в БД не нужен. При вероятном совпадении - один запрос по username OR email вместо двух exists.
+// Удаление из фильтра невозможно, поэтому устаревшие биты дают только лишние запросы и исчезают при перестройке.
+// Фильтр свой у каждого экземпляра: регистрации через другие экземпляры он видит только после периодической
+// перестройки, до неё уникальные ограничения БД остаются последней проверкой.
+@Component
+public class RegisteredIdentities {
+
+    public enum Conflict { NONE, USERNAME, EMAIL }
+
+    private static final String USERNAME_KEY = "u:";
+    private static final String EMAIL_KEY = "e:";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double fpp;
+    private final long minCapacity;
+
+    private volatile BloomFilter filter;
+    // Фильтр, который сейчас заполняется из БД; новые записи попадают и в него, чтобы не потеряться при подмене
+    private volatile BloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    public RegisteredIdentities(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${users.signup.bloom.fpp:0.01}") double fpp,
+                                @Value("${users.signup.bloom.min-capacity:100000}") long minCapacity) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fpp = fpp;
+        this.minCapacity = minCapacity;
+
+        this.negatives = meterRegistry.counter("user.signup.bloom.checks", "result", "negative");
+        this.positives = meterRegistry.counter("user.signup.bloom.checks", "result", "positive");
+        this.falsePositives = meterRegistry.counter("user.signup.bloom.false.positives");
+        Gauge.builder("user.signup.bloom.fpp.expected", this, identities -> identities.filter == null ? 0 : identities.filter.expectedFpp())
+                .register(meterRegistry);
+        Gauge.builder("user.signup.bloom.fpp.observed", this, identities -> identities.positives.count() == 0 ? 0
+                        : identities.falsePositives.count() / identities.positives.count())
+                .register(meterRegistry);
+        Gauge.builder("user.signup.bloom.memory", this, identities -> identities.filter == null ? 0 : identities.filter.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("user.signup.bloom.insertions", this, identities -> identities.filter == null ? 0 : identities.filter.insertions())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Фильтр рассчитан на ограниченное число вставок; при переполнении доля ложных срабатываний растёт
+    @Scheduled(fixedDelayString = "${users.signup.bloom.check-interval-ms:60000}")
+    public void rebuildIfSaturated() {
+        BloomFilter current = filter;
+        if (current != null && current.expectedFpp() > fpp * 2) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${users.signup.bloom.refresh-interval-ms:600000}",
+            fixedDelayString = "${users.signup.bloom.refresh-interval-ms:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public Conflict check(String username, String email) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(USERNAME_KEY + username) && !current.mightContain(EMAIL_KEY + email)) {
+            negatives.increment();
+            return Conflict.NONE;
+        }
+
+        Conflict conflict = Conflict.NONE;
+        for (UserIdentity identity : userRepository.findIdentities(username, email)) {
+            if (username != null && username.equals(identity.getUsername())) {
+                conflict = Conflict.USERNAME;
+                break;
+            }
+            conflict = Conflict.EMAIL;
+        }
+        if (current != null) {
+            positives.increment();
+            if (conflict == Conflict.NONE) {
+                falsePositives.increment();
+            }
+        }
+        return conflict;
+    }
+
+    public void add(String username, String email) {
+        BloomFilter current = filter;
+        if (current != null) {
+            put(current, username, email);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            put(next, username, email);
+        }
+    }
+
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long count = userRepository.count();
+            BloomFilter next = BloomFilter.create(Math.max(count * 4, minCapacity), fpp);
+            building = next;
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentity> identities = userRepository.streamIdentities()) {
+                    identities.forEach(identity -> put(next, identity.getUsername(), identity.getEmail()));
+                }
+            });
+            filter = next;
+            System.out.println("[DEBUG] Registered identities filter built: " + count + " users, "
+                    + next.memoryBytes() + " bytes");
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to build registered identities filter: " + e.getMessage());
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private static void put(BloomFilter target, String username, String email) {
+        target.put(USERNAME_KEY + username);
+        target.put(EMAIL_KEY + email);
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.userservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Ограниченный TTL-кэш ролей поверх AuthServiceClient.
+// Одновременные промахи по одному пользователю сводятся к одному запросу в auth-service.
+// Роли меняются только при регистрации, поэтому актуальность держит TTL; invalidate - для локального сброса
+@Component
+public class RoleCache {
+
+    private final AuthServiceClient authServiceClient;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Set<String>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RoleCache(AuthServiceClient authServiceClient, MeterRegistry meterRegistry,
+                     @Value("${auth.roles.cache.ttl:5m}") Duration ttl,
+                     @Value("${auth.roles.cache.max-size:10000}") int maxSize) {
+        this.authServiceClient = authServiceClient;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.hits = meterRegistry.counter("user.roles.cache.hits");
+        this.misses = meterRegistry.counter("user.roles.cache.misses");
+        this.evictions = meterRegistry.counter("user.roles.cache.evictions");
+        meterRegistry.gaugeMapSize("user.roles.cache.size", Tags.empty(), entries);
+    }
+
+    public Set<String> getRoles(String username) {
+        Entry entry = entries.get(username);
+        if (entry != null) {
+            if (!entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return entry.roles;
+            }
+            if (entries.remove(username, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Set<String>> mine = new CompletableFuture<>();
+        CompletableFuture<Set<String>> existing = inFlight.putIfAbsent(username, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            Set<String> roles = fetch(username);
+            Entry stored = put(username, roles);
+            // Если за время запроса пришла инвалидация, её запись уже удалила нашу future - не кэшируем.
+            // Удаляется только своя запись: более новую мог положить параллельный запрос после инвалидации
+            if (!inFlight.remove(username, mine) && stored != null) {
+                entries.remove(username, stored);
+            }
+            mine.complete(roles);
+            return roles;
+        } catch (RuntimeException e) {
+            inFlight.remove(username, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(String username) {
+        inFlight.remove(username);
+        if (entries.remove(username) != null) {
+            evictions.increment();
+        }
+    }
+
+    private Set<String> fetch(String username) {
+        ResponseEntity<RoleDTO[]> response = authServiceClient.getRolesByUsername(username);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Unable to fetch roles: " + response.getStatusCode());
+        }
+        RoleDTO[] roles = response.getBody();
+        if (roles == null) {
+            return Set.of();
+        }
+        return Arrays.stream(roles).map(RoleDTO::getName).collect(Collectors.toUnmodifiableSet());
+    }
+
+    // Положенная запись; null, если кэш выключен
+    private Entry put(String username, Set<String> roles) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        Entry entry = new Entry(roles, System.nanoTime() + ttlNanos);
+        entries.put(username, entry);
+        return entry;
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        int toDrop = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> next = it.next();
+            if (next.getValue().isExpired(now) || toDrop > 0) {
+                it.remove();
+                evictions.increment();
+                toDrop--;
+            }
+        }
+    }
+
+    private record Entry(Set<String> roles, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
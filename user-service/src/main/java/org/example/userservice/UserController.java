@@ -1,46 +1,97 @@
 package org.example.userservice;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private AuthServiceClient authServiceClient;
+    private RoleCache roleCache;
+
+    @Autowired
+    private RegisteredIdentities registeredIdentities;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
 
-    private final JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${users.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${users.batch.max-size:500}")
+    private int maxBatchSize;
+
+    // Запрос ролей в auth-service только для токенов без claim "roles" и только если явно включено
+    @Value("${auth.roles.remote-fallback:false}")
+    private boolean remoteRoleFallback;
+
+    // Роли всегда берутся с сервера (через RoleCache), claim "roles" в токене игнорируется
+    @Value("${auth.roles.server-side:false}")
+    private boolean serverSideRoles;
+
+    public UserController(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @PostMapping
-    public ResponseEntity<String> createUser(@RequestBody UserRequest userRequest, @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<String> createUser(@RequestBody UserRequest userRequest, @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Creating user with username: " + userRequest.getUsername());
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing token");
-        }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
+        if (claims == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
         }
 
-        if (userRepository.existsByUsername(userRequest.getUsername())) {
+        RegisteredIdentities.Conflict conflict = registeredIdentities.check(userRequest.getUsername(), userRequest.getEmail());
+        if (conflict == RegisteredIdentities.Conflict.USERNAME) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Username already exists");
         }
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
+        if (conflict == RegisteredIdentities.Conflict.EMAIL) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email already exists");
         }
 
@@ -50,15 +101,67 @@ public class UserController {
         user.setFirstName(userRequest.getFirstName());
         user.setLastName(userRequest.getLastName());
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Имя или email занят через другой экземпляр, фильтр этого экземпляра о нём ещё не знает
+            registeredIdentities.add(user.getUsername(), user.getEmail());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(userRepository.existsByUsername(user.getUsername())
+                    ? "Username already exists" : "Email already exists");
+        }
+        registeredIdentities.add(user.getUsername(), user.getEmail());
+        searchIndex.put(user);
         return ResponseEntity.ok("User created successfully");
     }
 
+    // Пакетное идемпотентное создание пользователей из outbox auth-service
+    @PostMapping("/provision")
+    public ResponseEntity<List<ProvisioningResult>> provisionUsers(@RequestBody List<UserRequest> userRequests,
+                                                                   @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        // Сервисная роль всегда берётся из токена: сервисов нет среди пользователей auth-service
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!claims.getRoles().contains("SERVICE")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<ProvisioningResult> results = new ArrayList<>(userRequests.size());
+        for (UserRequest userRequest : userRequests) {
+            results.add(new ProvisioningResult(userRequest.getUsername(), provision(userRequest)));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private String provision(UserRequest userRequest) {
+        RegisteredIdentities.Conflict conflict = registeredIdentities.check(userRequest.getUsername(), userRequest.getEmail());
+        if (conflict == RegisteredIdentities.Conflict.USERNAME) {
+            return "EXISTS";
+        }
+        if (conflict == RegisteredIdentities.Conflict.EMAIL) {
+            return "CONFLICT";
+        }
+        User user = new User();
+        user.setUsername(userRequest.getUsername());
+        user.setEmail(userRequest.getEmail());
+        user.setFirstName(userRequest.getFirstName());
+        user.setLastName(userRequest.getLastName());
+        try {
+            userRepository.save(user);
+            registeredIdentities.add(user.getUsername(), user.getEmail());
+            searchIndex.put(user);
+            return "CREATED";
+        } catch (DataIntegrityViolationException e) {
+            // Параллельная доставка той же записи успела создать пользователя
+            return userRepository.existsByUsername(userRequest.getUsername()) ? "EXISTS" : "CONFLICT";
+        }
+    }
+
     @GetMapping("/id/{id}")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Fetching user with ID: " + id);
 
-        ResponseEntity<?> authResponse = validateTokenAndRole(authHeader, "USER");
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
         if (!authResponse.getStatusCode().is2xxSuccessful()) {
             return ResponseEntity.status(authResponse.getStatusCode())
                     .body(new UserResponse(authResponse.getBody().toString()));
@@ -71,48 +174,140 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers(@RequestHeader("Authorization") String authHeader) {
-        System.out.println("[DEBUG] Fetching all users");
+    public ResponseEntity<List<UserResponse>> getAllUsers(@RequestParam(required = false) Long cursor,
+                                                          @RequestParam(defaultValue = "50") int size,
+                                                          @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        System.out.println("[DEBUG] Fetching users after id " + cursor);
 
-        ResponseEntity<?> authResponse = validateTokenAndRole(authHeader, "USER");
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
         if (!authResponse.getStatusCode().is2xxSuccessful()) {
             return ResponseEntity.status(authResponse.getStatusCode())
                     .body(List.of(new UserResponse(authResponse.getBody().toString())));
         }
 
-        List<User> users = userRepository.findAll();
+        Limit limit = Limit.of(Math.max(1, Math.min(size, maxPageSize)));
+        List<User> users = cursor == null
+                ? userRepository.findAllByOrderByIdAsc(limit)
+                : userRepository.findByIdGreaterThanOrderByIdAsc(cursor, limit);
         List<UserResponse> userResponses = users.stream()
                 .map(UserResponse::new)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(userResponses);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == limit.max()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).getId()));
+        }
+        return response.body(userResponses);
+    }
+
+    // Вся таблица одним JSON-массивом: строки пишутся в ответ по мере чтения курсора, память не растёт
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        System.out.println("[DEBUG] Streaming all users");
+
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
+        if (!authResponse.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(authResponse.getStatusCode()).build();
+        }
+
+        StreamingResponseBody body = outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<User> users = userRepository.streamAllOrderById();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartArray();
+                Iterator<User> it = users.iterator();
+                while (it.hasNext()) {
+                    User user = it.next();
+                    json.writeObject(new UserResponse(user));
+                    entityManager.detach(user);
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Поиск для тренеров и администраторов по username, имени, фамилии и email - из памяти, без запросов в БД
+    @GetMapping("/search")
+    public ResponseEntity<List<UserResponse>> searchUsers(@RequestParam("q") String query,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "20") int size,
+                                                          @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "COACH");
+        if (authResponse.getStatusCode() == HttpStatus.FORBIDDEN) {
+            authResponse = validateTokenAndRole(claims, "ADMIN");
+        }
+        if (!authResponse.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(authResponse.getStatusCode())
+                    .body(List.of(new UserResponse(authResponse.getBody().toString())));
+        }
+
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        return ResponseEntity.ok(searchIndex.search(query, page, pageSize).stream()
+                .map(UserResponse::new)
+                .collect(Collectors.toList()));
+    }
+
+    // Пакетный поиск для внутренних вызовов: один IN-запрос вместо N запросов по одному пользователю
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserResponse>> getUsersBatch(@RequestBody UserBatchRequest batchRequest,
+                                                            @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
+        if (!authResponse.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(authResponse.getStatusCode())
+                    .body(List.of(new UserResponse(authResponse.getBody().toString())));
+        }
+
+        Set<String> usernames = batchRequest.getUsernames() == null ? Set.of() : new HashSet<>(batchRequest.getUsernames());
+        Set<Long> ids = batchRequest.getIds() == null ? Set.of() : new HashSet<>(batchRequest.getIds());
+        if (usernames.size() + ids.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(List.of(new UserResponse("Too many keys, max " + maxBatchSize)));
+        }
+
+        Map<Long, User> found = new LinkedHashMap<>();
+        if (!usernames.isEmpty()) {
+            userRepository.findByUsernameIn(usernames).forEach(user -> found.put(user.getId(), user));
+        }
+        if (!ids.isEmpty()) {
+            userRepository.findByIdIn(ids).forEach(user -> found.put(user.getId(), user));
+        }
+        return ResponseEntity.ok(found.values().stream().map(UserResponse::new).collect(Collectors.toList()));
     }
 
     @PutMapping("/id/{id}")
-    public ResponseEntity<String> updateUser(@PathVariable Long id, @RequestBody UserRequest userRequest, @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<String> updateUser(@PathVariable Long id, @RequestBody UserRequest userRequest, @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Updating user with ID: " + id);
 
-        ResponseEntity<?> authResponse = validateTokenAndRole(authHeader, "USER");
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
         if (!authResponse.getStatusCode().is2xxSuccessful()) {
             return ResponseEntity.status(authResponse.getStatusCode()).body(authResponse.getBody().toString());
         }
 
         return userRepository.findById(id)
                 .map(user -> {
+                    String previousUsername = user.getUsername();
                     user.setUsername(userRequest.getUsername());
                     user.setEmail(userRequest.getEmail());
                     user.setFirstName(userRequest.getFirstName());
                     user.setLastName(userRequest.getLastName());
                     userRepository.save(user);
+                    registeredIdentities.add(user.getUsername(), user.getEmail());
+                    searchIndex.put(user);
+                    if (!previousUsername.equals(user.getUsername())) {
+                        eventPublisher.publishEvent(new UserDeletedEvent(List.of(previousUsername)));
+                    }
                     return ResponseEntity.ok("User updated successfully");
                 })
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found"));
     }
 
     @DeleteMapping("/id/{id}")
-    public ResponseEntity<String> deleteUser(@PathVariable Long id, @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<String> deleteUser(@PathVariable Long id, @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Deleting user with ID: " + id);
 
-        ResponseEntity<?> authResponse = validateTokenAndRole(authHeader, "USER");
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
         if (!authResponse.getStatusCode().is2xxSuccessful()) {
             return ResponseEntity.status(authResponse.getStatusCode()).body(authResponse.getBody().toString());
         }
@@ -120,49 +315,33 @@ public class UserController {
         return userRepository.findById(id)
                 .map(user -> {
                     userRepository.delete(user);
+                    searchIndex.remove(user.getId());
+                    eventPublisher.publishEvent(new UserDeletedEvent(List.of(user.getUsername())));
                     return ResponseEntity.ok("User deleted successfully");
                 })
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found"));
     }
 
     @GetMapping("/me")
-    public ResponseEntity<UserResponse> getCurrentUser(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<UserResponse> getCurrentUser(@RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Fetching current user");
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (claims == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new UserResponse("Invalid or missing Authorization header"));
         }
 
-        String jwt = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(jwt)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new UserResponse("Invalid token"));
-            }
-
-            String username = jwtUtil.extractUsername(jwt);
-            if (username == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new UserResponse("Invalid token: username not found"));
-            }
-
-            return userRepository.findByUsername(username)
-                    .map(user -> ResponseEntity.ok(new UserResponse(user)))
-                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                            .body(new UserResponse("User not found")));
-        } catch (Exception e) {
-            System.out.println("[DEBUG] Error validating token: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new UserResponse("Error validating token: " + e.getMessage()));
-        }
+        return userRepository.findByUsername(claims.getUsername())
+                .map(user -> ResponseEntity.ok(new UserResponse(user)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new UserResponse("User not found")));
     }
 
     @GetMapping("/username/{username}")
-    public ResponseEntity<UserResponse> getUserByUsername(@PathVariable String username, @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<UserResponse> getUserByUsername(@PathVariable String username, @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         System.out.println("[DEBUG] Fetching user with username: " + username);
 
-        ResponseEntity<?> authResponse = validateTokenAndRole(authHeader, "USER");
+        ResponseEntity<?> authResponse = validateTokenAndRole(claims, "USER");
         if (!authResponse.getStatusCode().is2xxSuccessful()) {
             return ResponseEntity.status(authResponse.getStatusCode())
                     .body(new UserResponse(authResponse.getBody().toString()));
@@ -174,38 +353,35 @@ public class UserController {
                         .body(new UserResponse("User not found")));
     }
 
-    private ResponseEntity<?> validateTokenAndRole(String authHeader, String requiredRole) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+    private ResponseEntity<?> validateTokenAndRole(VerifiedClaims claims, String requiredRole) {
+        if (claims == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or missing Authorization header");
         }
 
-        String jwt = authHeader.substring(7);
-        try {
-            if (!jwtUtil.validateToken(jwt)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
-            }
+        // Сервисные токены выпускаются только владельцами общего секрета и допускаются наравне с USER
+        if (claims.getRoles().contains("SERVICE")) {
+            return ResponseEntity.ok().build();
+        }
 
-            String username = jwtUtil.extractUsername(jwt);
-            if (username == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token: username not found");
+        if (!serverSideRoles) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getAuthorities().stream()
+                    .anyMatch(authority -> authority.getAuthority().equals("ROLE_" + requiredRole))) {
+                return ResponseEntity.ok().build();
             }
-
-            ResponseEntity<RoleDTO[]> roleResponse = authServiceClient.getRolesByUsername(username);
-            if (roleResponse.getStatusCode().is2xxSuccessful()) {
-                RoleDTO[] roles = roleResponse.getBody();
-                if (roles != null) {
-                    for (RoleDTO role : roles) {
-                        if (role.getName().equals(requiredRole)) {
-                            return ResponseEntity.ok().build();
-                        }
-                    }
-                }
+            if (!remoteRoleFallback || !claims.getRoles().isEmpty()) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Required role " + requiredRole + " not found");
             }
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unable to fetch roles");
+        }
+
+        try {
+            if (roleCache.getRoles(claims.getUsername()).contains(requiredRole)) {
+                return ResponseEntity.ok().build();
+            }
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Required role " + requiredRole + " not found");
         } catch (Exception e) {
-            System.out.println("[DEBUG] Error validating token: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error validating token: " + e.getMessage());
+            System.out.println("[DEBUG] Error fetching roles: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching roles: " + e.getMessage());
         }
     }
 }
@@ -226,6 +402,31 @@ class UserRequest {
     public void setLastName(String lastName) { this.lastName = lastName; }
 }
 
+class UserBatchRequest {
+    private List<String> usernames;
+    private List<Long> ids;
+
+    public List<String> getUsernames() { return usernames; }
+    public void setUsernames(List<String> usernames) { this.usernames = usernames; }
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
+
+class ProvisioningResult {
+    private String username;
+    private String status;
+
+    public ProvisioningResult(String username, String status) {
+        this.username = username;
+        this.status = status;
+    }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
+
 class UserResponse {
     private Long id;
     private String username;
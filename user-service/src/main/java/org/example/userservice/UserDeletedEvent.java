@@ -0,0 +1,17 @@
+package org.example.userservice;
+
+import java.util.List;
+
+// Пользователи, которых больше нет под этими именами (удаление или переименование)
+public class UserDeletedEvent {
+
+    private final List<String> usernames;
+
+    public UserDeletedEvent(List<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.userservice;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Map;
+
+// Рассылает вытеснение удалённых пользователей из кэшей существования каждому экземпляру
+// workout-service и progress-service. Как и инвалидация ролей, идёт в обход балансировщика.
+@Component
+public class UserDeletionPublisher {
+
+    private static final Map<String, String> EVICT_PATHS = Map.of(
+            "workout-service", "/api/workouts/internal/users/evict",
+            "progress-service", "/api/progress/internal/users/evict");
+
+    private final DiscoveryClient discoveryClient;
+    private final RestClient restClient;
+    private final JwtUtil jwtUtil;
+
+    public UserDeletionPublisher(DiscoveryClient discoveryClient, RestClient.Builder restClientBuilder, JwtUtil jwtUtil) {
+        this.discoveryClient = discoveryClient;
+        this.restClient = restClientBuilder.build();
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        String token = jwtUtil.generateToken("user-service", List.of("SERVICE"));
+        EVICT_PATHS.forEach((service, path) -> {
+            for (ServiceInstance instance : discoveryClient.getInstances(service)) {
+                try {
+                    restClient.post()
+                            .uri(instance.getUri() + path)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(Map.of("usernames", event.getUsernames()))
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (Exception e) {
+                    // Не критично: подтверждение в кэше истечёт по TTL, фильтр перестроится по расписанию
+                    System.err.println("[ERROR] Failed to evict users on " + instance.getUri() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+}
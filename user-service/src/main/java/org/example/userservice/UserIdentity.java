@@ -0,0 +1,6 @@
+package org.example.userservice;
+
+public interface UserIdentity {
+    String getUsername();
+    String getEmail();
+}
@@ -1,11 +1,42 @@
 package org.example.userservice;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    List<User> findByUsernameIn(Collection<String> usernames);
+    List<User> findByIdIn(Collection<Long> ids);
+
+    // Keyset-пагинация по id: стоимость страницы не зависит от её номера
+    List<User> findAllByOrderByIdAsc(Limit limit);
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Курсор PostgreSQL читает порциями только внутри транзакции
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+
+    // Одна проверка занятости имени и email вместо двух exists-запросов
+    @Query("select u.username as username, u.email as email from User u where u.username = :username or u.email = :email")
+    List<UserIdentity> findIdentities(@Param("username") String username, @Param("email") String email);
+
+    // Только имя и email - для построения bloom filter без загрузки сущностей
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u.username as username, u.email as email from User u")
+    Stream<UserIdentity> streamIdentities();
 }
@@ -0,0 +1,376 @@
+package org.example.userservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Поиск пользователей по username, имени, фамилии и email без LIKE-сканирования таблицы.
+// Каждое слово (username, firstName, lastName, локальная часть email) раскладывается на n-граммы с маркером
+// начала слова "^": "^a" и триграммы "^ab", "abc", ... Списки документов по n-грамме растут только в конец,
+// поэтому отсортированы по порядковому номеру документа; удалённые и изменённые документы остаются
+// в списках "мёртвыми" и вычищаются полной перестройкой.
+// Префиксный поиск - пересечение списков с проверкой startsWith; нечёткий - ранжирование по числу общих триграмм.
+@Component
+public class UserSearchIndex {
+
+    private static final char WORD_START = '^';
+    private static final double STOP_GRAM_FRACTION = 0.1;
+    private static final int MIN_STOP_GRAM_POSTINGS = 1000;
+
+    private final double fuzzyMinMatch;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    // Изменения, пришедшие во время перестройки; повторяются на новом индексе перед подменой
+    private List<Consumer<Index>> pendingWrites;
+
+    public UserSearchIndex(@Value("${users.search.fuzzy-min-match:0.5}") double fuzzyMinMatch) {
+        this.fuzzyMinMatch = fuzzyMinMatch;
+    }
+
+    public void put(User user) {
+        Doc doc = new Doc(user);
+        write(target -> target.put(doc));
+    }
+
+    public void remove(Long id) {
+        write(target -> target.remove(id));
+    }
+
+    // source передаёт всех пользователей из БД; поиск во время перестройки работает по старому индексу
+    public void rebuild(Consumer<Consumer<User>> source) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                return;
+            }
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index next = new Index();
+        boolean built = false;
+        try {
+            source.accept(user -> next.put(new Doc(user)));
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // Недостроенный индекс (ошибка чтения из БД) не подменяет рабочий: поиск остаётся на старом
+                if (built) {
+                    pendingWrites.forEach(write -> write.accept(next));
+                    index = next;
+                }
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Сначала совпадения по префиксу (в порядке добавления), затем нечёткие (по убыванию числа общих триграмм)
+    public List<User> search(String query, int page, int size) {
+        String[] terms = terms(query);
+        if (terms.length == 0 || size <= 0) {
+            return List.of();
+        }
+        int offset = Math.max(0, page) * size;
+
+        lock.readLock().lock();
+        try {
+            List<User> results = new ArrayList<>(size);
+            Set<Integer> prefixMatches = new HashSet<>();
+            int[] matched = {0};
+            index.forEachCandidate(terms, ordinal -> {
+                Doc doc = index.docs[ordinal];
+                if (doc == null || !doc.matchesPrefixes(terms)) {
+                    return true;
+                }
+                prefixMatches.add(ordinal);
+                if (matched[0]++ >= offset) {
+                    results.add(doc.toUser());
+                }
+                return results.size() < size;
+            });
+            if (results.size() == size) {
+                return results;
+            }
+
+            int skipped = matched[0];
+
+            for (int ordinal : index.fuzzyCandidates(terms, fuzzyMinMatch)) {
+                if (prefixMatches.contains(ordinal)) {
+                    continue;
+                }
+                if (skipped++ >= offset) {
+                    results.add(index.docs[ordinal].toUser());
+                    if (results.size() == size) {
+                        break;
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Index> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(index);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String[] terms(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Часть термина до "@": локальная часть email индексируется как отдельное слово
+    private static String indexedPart(String term) {
+        int at = term.indexOf('@');
+        return at < 0 ? term : term.substring(0, at);
+    }
+
+    private static Set<String> grams(String word, boolean withShortPrefix) {
+        Set<String> grams = new HashSet<>();
+        if (word.isEmpty()) {
+            return grams;
+        }
+        String padded = WORD_START + word;
+        if (withShortPrefix) {
+            grams.add(padded.substring(0, 2));
+        }
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static final class Index {
+        private Doc[] docs = new Doc[1024];
+        private int size;
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private final Map<String, IntList> postings = new HashMap<>();
+
+        void put(Doc doc) {
+            Integer previous = ordinalById.put(doc.id, size);
+            if (previous != null) {
+                docs[previous] = null;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size] = doc;
+            Set<String> docGrams = new HashSet<>();
+            for (String word : doc.words) {
+                docGrams.addAll(grams(word, true));
+            }
+            for (String gram : docGrams) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(size);
+            }
+            size++;
+        }
+
+        void remove(Long id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal != null) {
+                docs[ordinal] = null;
+            }
+        }
+
+        // Обходит пересечение списков всех n-грамм запроса по возрастанию номера, пока visitor возвращает true.
+        // Идём по самому короткому списку и ищем значения в остальных, поэтому первая страница не требует
+        // полного пересечения. Кандидатов ещё нужно проверить префиксами.
+        void forEachCandidate(String[] terms, IntPredicate visitor) {
+            List<IntList> lists = new ArrayList<>();
+            for (String term : terms) {
+                String word = indexedPart(term);
+                if (word.isEmpty()) {
+                    return;
+                }
+                Set<String> termGrams = word.length() == 1
+                        ? Set.of(String.valueOf(WORD_START) + word)
+                        : grams(word, false);
+                for (String gram : termGrams) {
+                    IntList list = postings.get(gram);
+                    if (list == null) {
+                        return;
+                    }
+                    lists.add(list);
+                }
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            IntList smallest = lists.get(0);
+            int[] positions = new int[lists.size()];
+            for (int i = 0; i < smallest.size; i++) {
+                int value = smallest.values[i];
+                boolean inAll = true;
+                for (int l = 1; l < lists.size() && inAll; l++) {
+                    IntList other = lists.get(l);
+                    int found = Arrays.binarySearch(other.values, positions[l], other.size, value);
+                    if (found >= 0) {
+                        positions[l] = found + 1;
+                    } else {
+                        positions[l] = -found - 1;
+                        inAll = false;
+                    }
+                }
+                if (inAll && !visitor.test(value)) {
+                    return;
+                }
+            }
+        }
+
+        // Документы, у которых общих триграмм с запросом не меньше minMatch от их числа в запросе
+        List<Integer> fuzzyCandidates(String[] terms, double minMatch) {
+            Set<String> queryGrams = new HashSet<>();
+            for (String term : terms) {
+                queryGrams.addAll(grams(indexedPart(term), false));
+            }
+            if (queryGrams.isEmpty()) {
+                return List.of();
+            }
+
+            // Слишком частые триграммы ("use", "ser") есть почти у всех: считаем их совпавшими у всех
+            // и не разбираем их списки, иначе стоимость запроса растёт с размером таблицы
+            int stopGramLimit = Math.max(MIN_STOP_GRAM_POSTINGS, (int) (ordinalById.size() * STOP_GRAM_FRACTION));
+            int stopGrams = 0;
+            int total = 0;
+            List<IntList> lists = new ArrayList<>();
+            for (String gram : queryGrams) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                if (list.size > stopGramLimit) {
+                    stopGrams++;
+                } else {
+                    lists.add(list);
+                    total += list.size;
+                }
+            }
+            if (lists.isEmpty()) {
+                return List.of();
+            }
+            int[] all = new int[total];
+            int position = 0;
+            for (IntList list : lists) {
+                System.arraycopy(list.values, 0, all, position, list.size);
+                position += list.size;
+            }
+            Arrays.sort(all);
+
+            int required = Math.max(1, (int) Math.ceil(queryGrams.size() * minMatch) - stopGrams);
+            List<int[]> scored = new ArrayList<>();
+            for (int i = 0; i < all.length; ) {
+                int j = i;
+                while (j < all.length && all[j] == all[i]) {
+                    j++;
+                }
+                if (j - i >= required && docs[all[i]] != null) {
+                    scored.add(new int[]{all[i], j - i});
+                }
+                i = j;
+            }
+            scored.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+
+            List<Integer> result = new ArrayList<>(scored.size());
+            for (int[] entry : scored) {
+                result.add(entry[0]);
+            }
+            return result;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class Doc {
+        private final Long id;
+        private final String username;
+        private final String email;
+        private final String firstName;
+        private final String lastName;
+        private final String emailLower;
+        private final String[] words;
+
+        Doc(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+            this.emailLower = normalize(email);
+            this.words = new String[]{normalize(username), indexedPart(emailLower), normalize(firstName), normalize(lastName)};
+        }
+
+        // Каждый термин запроса - префикс хотя бы одного слова или всего email
+        boolean matchesPrefixes(String[] terms) {
+            for (String term : terms) {
+                boolean found = emailLower.startsWith(term);
+                for (int i = 0; i < words.length && !found; i++) {
+                    found = words[i].startsWith(term);
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            return user;
+        }
+    }
+}
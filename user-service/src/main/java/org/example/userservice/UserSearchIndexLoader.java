@@ -0,0 +1,58 @@
+package org.example.userservice;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+// Заполняет UserSearchIndex из БД при старте и периодически перестраивает его целиком:
+// это убирает "мёртвые" записи и подтягивает изменения, сделанные через другие экземпляры user-service
+@Component
+public class UserSearchIndexLoader {
+
+    private final UserSearchIndex searchIndex;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserSearchIndexLoader(UserSearchIndex searchIndex, UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.searchIndex = searchIndex;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${users.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${users.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            searchIndex.rebuild(sink -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<User> users = userRepository.streamAllOrderById()) {
+                    users.forEach(user -> {
+                        sink.accept(user);
+                        entityManager.detach(user);
+                    });
+                }
+            }));
+            System.out.println("[DEBUG] Search index rebuilt: " + searchIndex.size() + " users in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to rebuild search index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.userservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleCacheTests {
+
+    private static RoleDTO[] roles(String... names) {
+        RoleDTO[] result = new RoleDTO[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = new RoleDTO();
+            result[i].setName(names[i]);
+        }
+        return result;
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AuthServiceClient client = username -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(roles("USER"));
+        };
+        RoleCache cache = new RoleCache(client, new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Set<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> cache.getRoles("athlete")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<Set<String>> result : results) {
+            assertEquals(Set.of("USER"), result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void invalidateForcesRefetch() {
+        AtomicInteger calls = new AtomicInteger();
+        AuthServiceClient client = username -> ResponseEntity.ok(calls.incrementAndGet() == 1 ? roles("USER") : roles("USER", "COACH"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoleCache cache = new RoleCache(client, registry, Duration.ofMinutes(1), 100);
+
+        assertEquals(Set.of("USER"), cache.getRoles("athlete"));
+        assertEquals(Set.of("USER"), cache.getRoles("athlete"));
+        cache.invalidate("athlete");
+        assertEquals(Set.of("USER", "COACH"), cache.getRoles("athlete"));
+
+        assertEquals(1.0, registry.counter("user.roles.cache.hits").count());
+        assertEquals(2.0, registry.counter("user.roles.cache.misses").count());
+        assertEquals(1.0, registry.counter("user.roles.cache.evictions").count());
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.userservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTests {
+
+    private static User user(long id, String username, String email, String firstName, String lastName) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+
+    private static List<String> usernames(List<User> users) {
+        return users.stream().map(User::getUsername).toList();
+    }
+
+    private static UserSearchIndex sampleIndex() {
+        UserSearchIndex index = new UserSearchIndex(0.5);
+        index.put(user(1, "jsmith", "john.smith@example.com", "John", "Smith"));
+        index.put(user(2, "alice", "alice@example.com", "Alice", "Goldsmith"));
+        index.put(user(3, "bob", "bob@mail.org", "Bob", "Johnson"));
+        return index;
+    }
+
+    @Test
+    void prefixMatchesAnyFieldCaseInsensitive() {
+        UserSearchIndex index = sampleIndex();
+        assertEquals(List.of("jsmith", "bob"), usernames(index.search("Jo", 0, 10)));
+        assertEquals(List.of("alice"), usernames(index.search("alice@ex", 0, 10)));
+        assertEquals(List.of("bob"), usernames(index.search("b", 0, 10)));
+        // Все слова запроса должны совпасть по префиксу; bob (Johnson) - только нечёткое совпадение, после точных
+        assertEquals(List.of("jsmith", "bob"), usernames(index.search("john smi", 0, 10)));
+    }
+
+    @Test
+    void fuzzyMatchesFollowPrefixMatches() {
+        UserSearchIndex index = sampleIndex();
+        // "smith" - префикс фамилии jsmith и подстрока фамилии Goldsmith
+        assertEquals(List.of("jsmith", "alice"), usernames(index.search("smith", 0, 10)));
+        assertEquals(List.of("alice"), usernames(index.search("smith", 1, 1)));
+    }
+
+    @Test
+    void updatesAndDeletesAreVisibleImmediately() {
+        UserSearchIndex index = sampleIndex();
+        index.put(user(3, "robert", "bob@mail.org", "Robert", "Johnson"));
+        assertEquals(List.of("robert"), usernames(index.search("rob", 0, 10)));
+        assertTrue(index.search("bob", 0, 10).stream().allMatch(u -> u.getId() == 3));
+
+        index.remove(1L);
+        assertEquals(List.of("robert"), usernames(index.search("jo", 0, 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeDuringIt() {
+        UserSearchIndex index = new UserSearchIndex(0.5);
+        index.rebuild(sink -> {
+            sink.accept(user(1, "first", "first@example.com", null, null));
+            index.put(user(2, "second", "second@example.com", null, null));
+        });
+        assertEquals(List.of("first"), usernames(index.search("fir", 0, 10)));
+        assertEquals(List.of("second"), usernames(index.search("sec", 0, 10)));
+    }
+
+    @Test
+    void failedRebuildKeepsCurrentIndex() {
+        UserSearchIndex index = sampleIndex();
+        assertThrows(IllegalStateException.class, () -> index.rebuild(sink -> {
+            sink.accept(user(4, "partial", "partial@example.com", null, null));
+            throw new IllegalStateException("stream failed");
+        }));
+        assertEquals(3, index.size());
+        assertEquals(List.of("alice"), usernames(index.search("alice", 0, 10)));
+        assertTrue(index.search("partial", 0, 10).isEmpty());
+
+        // Следующая перестройка не блокируется оставшимся состоянием неудачной
+        index.rebuild(sink -> sink.accept(user(5, "fresh", "fresh@example.com", null, null)));
+        assertEquals(List.of("fresh"), usernames(index.search("fre", 0, 10)));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.workoutservice;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость проверки токена на один запрос: старая схема (validateToken + extractUsername,
+// ключ и парсер создаются заново на каждый вызов) против verify() без кэша и с кэшем.
+// Запуск: gradle jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "supersecurekey123456789012345678901234567890123456789012345678901234";
+
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private String token;
+
+    @Setup
+    public void setup() {
+        uncached = new JwtUtil(SECRET, 86400000L, 0);
+        cached = new JwtUtil(SECRET, 86400000L, 10000);
+        token = cached.generateToken("athlete");
+        cached.verify(token);
+    }
+
+    // Фильтр и контроллер делали это дважды на запрос - здесь один проход
+    @Benchmark
+    public void legacyValidateThenExtract(Blackhole bh) {
+        bh.consume(legacyParser().parseClaimsJws(token));
+        bh.consume(legacyParser().parseClaimsJws(token).getBody().getSubject());
+    }
+
+    @Benchmark
+    public VerifiedClaims verifyUncached() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedClaims verifyCached() {
+        return cached.verify(token);
+    }
+
+    private static io.jsonwebtoken.JwtParser legacyParser() {
+        Key key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        return Jwts.parserBuilder().setSigningKey(key).build();
+    }
+}
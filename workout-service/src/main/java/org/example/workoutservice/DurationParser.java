@@ -0,0 +1,74 @@
+package org.example.workoutservice;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Разбор свободной строки длительности в секунды. Правила совпадают с функцией parse_duration
+// из миграции V3, чтобы старые и новые записи считались одинаково:
+//   "45" - минуты; "45:30" - мм:сс; "1:05:00" - чч:мм:сс; "1h 30m", "90 min", "1,5 ч" - сумма по единицам
+final class DurationParser {
+
+    private static final Pattern MINUTES = Pattern.compile("\\d+");
+    private static final Pattern MINUTES_SECONDS = Pattern.compile("(\\d+):(\\d{2})");
+    private static final Pattern HOURS_MINUTES_SECONDS = Pattern.compile("(\\d+):(\\d{2}):(\\d{2})");
+    private static final Pattern WITH_UNITS = Pattern.compile("(\\s*\\d+(?:[.,]\\d+)?\\s*[a-zа-яё]+\\.?)+\\s*");
+    private static final Pattern UNIT_PART = Pattern.compile("(\\d+(?:[.,]\\d+)?)\\s*([a-zа-яё]+)");
+
+    private DurationParser() {
+    }
+
+    // null - если строку не удалось разобрать
+    static Integer parseSeconds(String value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        Matcher matcher;
+        if (MINUTES.matcher(text).matches()) {
+            return toSeconds(Double.parseDouble(text) * 60);
+        }
+        if ((matcher = MINUTES_SECONDS.matcher(text)).matches()) {
+            return toSeconds(Double.parseDouble(matcher.group(1)) * 60 + Double.parseDouble(matcher.group(2)));
+        }
+        if ((matcher = HOURS_MINUTES_SECONDS.matcher(text)).matches()) {
+            return toSeconds(Double.parseDouble(matcher.group(1)) * 3600
+                    + Double.parseDouble(matcher.group(2)) * 60 + Double.parseDouble(matcher.group(3)));
+        }
+        if (!WITH_UNITS.matcher(text).matches()) {
+            return null;
+        }
+        double seconds = 0;
+        matcher = UNIT_PART.matcher(text);
+        while (matcher.find()) {
+            int unit = unitSeconds(matcher.group(2));
+            if (unit == 0) {
+                return null;
+            }
+            seconds += Double.parseDouble(matcher.group(1).replace(',', '.')) * unit;
+        }
+        return toSeconds(seconds);
+    }
+
+    static String format(int seconds) {
+        int hours = seconds / 3600;
+        int minutes = seconds % 3600 / 60;
+        int rest = seconds % 60;
+        return hours > 0
+                ? String.format("%d:%02d:%02d", hours, minutes, rest)
+                : String.format("%d:%02d", minutes, rest);
+    }
+
+    private static int unitSeconds(String unit) {
+        return switch (unit) {
+            case "h", "hr", "hrs", "hour", "hours", "ч", "час", "часа", "часов" -> 3600;
+            case "m", "min", "mins", "minute", "minutes", "м", "мин", "минута", "минуты", "минут" -> 60;
+            case "s", "sec", "secs", "second", "seconds", "с", "сек", "секунда", "секунды", "секунд" -> 1;
+            default -> 0;
+        };
+    }
+
+    private static Integer toSeconds(double seconds) {
+        return seconds > Integer.MAX_VALUE ? null : (int) Math.round(seconds);
+    }
+}
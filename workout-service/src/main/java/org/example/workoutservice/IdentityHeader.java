@@ -0,0 +1,91 @@
+package org.example.workoutservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+// Компактная подписанная личность пользователя, которую api-gateway передаёт сервисам после проверки JWT:
+// base64url("<exp>;<роли через запятую>;<username>") + "." + base64url(HMAC-SHA256)
+@Component
+public class IdentityHeader {
+
+    public static final String NAME = "X-Auth-Identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public IdentityHeader(@Value("${gateway.identity.secret:}") String secret) {
+        this.key = secret.isBlank() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public String sign(VerifiedClaims claims) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("gateway.identity.secret is not configured");
+        }
+        long exp = claims.getExpiresAt() == null ? 0 : claims.getExpiresAt().getEpochSecond();
+        byte[] payload = (exp + ";" + String.join(",", claims.getRoles()) + ";" + claims.getUsername())
+                .getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(macs.get().doFinal(payload));
+    }
+
+    // null - если заголовок отсутствует, подпись не сходится или срок истёк
+    public VerifiedClaims verify(String value) {
+        if (!isEnabled() || value == null) {
+            return null;
+        }
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(value.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+            return null;
+        }
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split(";", 3);
+        if (parts.length != 3 || parts[2].isEmpty()) {
+            return null;
+        }
+        long exp;
+        try {
+            exp = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Set<String> roles = parts[1].isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(parts[1].split(",")));
+        VerifiedClaims claims = new VerifiedClaims(parts[2], roles, exp == 0 ? null : Instant.ofEpochSecond(exp));
+        return claims.isExpired(Instant.now()) ? null : claims;
+    }
+}
@@ -5,20 +5,24 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final IdentityHeader identityHeader;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, IdentityHeader identityHeader) {
         this.jwtUtil = jwtUtil;
+        this.identityHeader = identityHeader;
     }
 
     @Override
@@ -26,20 +30,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String jwt = authHeader.substring(7);
-            try {
-                if (jwtUtil.validateToken(jwt)) {
-                    String username = jwtUtil.extractUsername(jwt);
-                    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken(username, null, null);
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
-                }
-            } catch (Exception e) {
-                System.out.println("[DEBUG] JWT validation failed: " + e.getMessage());
+        // Запрос пришёл через api-gateway: токен там уже проверен, достаточно сверить HMAC заголовка
+        VerifiedClaims claims = identityHeader.verify(request.getHeader(IdentityHeader.NAME));
+        if (claims == null && authHeader != null && authHeader.startsWith("Bearer ")) {
+            claims = jwtUtil.verify(authHeader.substring(7));
+            if (claims == null) {
+                System.out.println("[DEBUG] JWT validation failed");
+            }
+        }
+
+        if (claims != null && claims.getUsername() != null) {
+            request.setAttribute(JwtUtil.CLAIMS_ATTRIBUTE, claims);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                List<SimpleGrantedAuthority> authorities = claims.getRoles().stream()
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .toList();
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(claims.getUsername(), null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
 
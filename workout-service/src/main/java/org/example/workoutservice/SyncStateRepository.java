@@ -0,0 +1,6 @@
+package org.example.workoutservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SyncStateRepository extends JpaRepository<SyncState, String> {
+}
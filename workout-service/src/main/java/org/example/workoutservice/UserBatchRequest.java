@@ -0,0 +1,20 @@
+package org.example.workoutservice;
+
+import java.util.List;
+
+public class UserBatchRequest {
+    private List<String> usernames;
+    private List<Long> ids;
+
+    public UserBatchRequest() {}
+
+    public UserBatchRequest(List<String> usernames, List<Long> ids) {
+        this.usernames = usernames;
+        this.ids = ids;
+    }
+
+    public List<String> getUsernames() { return usernames; }
+    public void setUsernames(List<String> usernames) { this.usernames = usernames; }
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
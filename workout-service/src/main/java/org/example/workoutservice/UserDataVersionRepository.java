@@ -0,0 +1,19 @@
+package org.example.workoutservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserDataVersionRepository extends JpaRepository<UserDataVersion, String> {
+
+    // Вызывается в транзакции записи: версия меняется только вместе с данными
+    @Modifying
+    @Query(value = "insert into user_data_versions (username, version) values (:username, 1) "
+            + "on conflict (username) do update set version = user_data_versions.version + 1", nativeQuery = true)
+    void bump(@Param("username") String username);
+
+    default long currentVersion(String username) {
+        return findById(username).map(UserDataVersion::getVersion).orElse(0L);
+    }
+}
@@ -1,9 +1,18 @@
 package org.example.workoutservice;
 
 public class UserDto {
+    private Long id;
     private String username;
     private String email;
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getUsername() {
         return username;
     }
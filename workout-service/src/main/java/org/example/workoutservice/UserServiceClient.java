@@ -1,12 +1,30 @@
 package org.example.workoutservice;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "user-service")
 public interface UserServiceClient {
+
+    // Заголовок, в котором user-service возвращает курсор следующей страницы
+    String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @GetMapping("/api/users/username/{username}")
     UserDto getUserByUsername(@PathVariable String username, @RequestHeader("Authorization") String authHeader);
-}
\ No newline at end of file
+
+    @PostMapping("/api/users/batch")
+    List<UserDto> getUsersBatch(@RequestBody UserBatchRequest request, @RequestHeader("Authorization") String authHeader);
+
+    @GetMapping("/api/users")
+    ResponseEntity<List<UserDto>> getUsers(@RequestParam(value = "cursor", required = false) Long cursor,
+                                           @RequestParam("size") int size,
+                                           @RequestHeader("Authorization") String authHeader);
+}
@@ -2,20 +2,39 @@ package org.example.workoutservice;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
 @Table(name="workouts")
 public class Workout {
+    // Последовательность с шагом 50: id выдаются блоками без обращения к БД и вставки идут JDBC-пакетами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workouts_seq")
+    @SequenceGenerator(name = "workouts_seq", sequenceName = "workouts_seq", allocationSize = 50)
     private Long id;
     @Column
     private String name;
     @Column
     private String type;
+    // Исходная строка, как её ввёл пользователь; для расчётов - durationSeconds
     @Column
     private String duration;
+    @Column(name = "duration_seconds")
+    private Integer durationSeconds;
     @Column(nullable = false)
     private String username;
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    // Номер последнего изменения; выдаёт триггер БД (см. V6__workouts_change_seq.sql)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
 
     public Long getId() {
         return id;
@@ -49,6 +68,32 @@ public class Workout {
         this.duration = duration;
     }
 
+    public Integer getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(Integer durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    // Согласует поля перед сохранением: duration - основной источник, durationSeconds выводится из него,
+    // а присланное вместе с ним должно совпадать; без duration строка форматируется из durationSeconds.
+    // Нераспознанная строка сохраняется как есть, с durationSeconds = null
+    void resolveDuration() {
+        if (duration != null) {
+            Integer parsed = DurationParser.parseSeconds(duration);
+            if (durationSeconds != null && !durationSeconds.equals(parsed)) {
+                throw new IllegalArgumentException("durationSeconds " + durationSeconds + " does not match duration " + duration);
+            }
+            durationSeconds = parsed;
+        } else if (durationSeconds != null) {
+            if (durationSeconds < 0) {
+                throw new IllegalArgumentException("durationSeconds must not be negative");
+            }
+            duration = DurationParser.format(durationSeconds);
+        }
+    }
+
     public String getUsername() {
         return username;
     }
@@ -56,4 +101,16 @@ public class Workout {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
 }
@@ -1,49 +1,268 @@
 package org.example.workoutservice;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/workouts")
 public class WorkoutController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+    private static final List<String> STATS_BUCKETS = List.of("day", "week", "month", "year");
+
     private final WorkoutRepository workoutRepository;
-    private final JwtUtil jwtUtil;
-    private final UserServiceClient userClient;
+    private final WorkoutService workoutService;
+    private final UserDataVersionRepository versionRepository;
+    private final UserExistenceCache userExistence;
+    private final WorkoutImporter workoutImporter;
+    private final WorkoutExporter workoutExporter;
+
+    @Value("${workouts.page.max-size:200}")
+    private int maxPageSize;
 
-    public WorkoutController(WorkoutRepository workoutRepository, JwtUtil jwtUtil, UserServiceClient userClient) {
+    public WorkoutController(WorkoutRepository workoutRepository, WorkoutService workoutService,
+                             UserDataVersionRepository versionRepository, UserExistenceCache userExistence,
+                             WorkoutImporter workoutImporter, WorkoutExporter workoutExporter) {
         this.workoutRepository = workoutRepository;
-        this.jwtUtil = jwtUtil;
-        this.userClient = userClient;
+        this.workoutService = workoutService;
+        this.versionRepository = versionRepository;
+        this.userExistence = userExistence;
+        this.workoutImporter = workoutImporter;
+        this.workoutExporter = workoutExporter;
     }
 
     @PostMapping
-    public ResponseEntity<Workout> addWorkout(@RequestBody Workout workout, @RequestHeader("Authorization") String token) {
+    public ResponseEntity<Workout> addWorkout(@RequestBody Workout workout,
+                                              @RequestHeader("Authorization") String token,
+                                              @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
         try {
-            if (token == null || !token.startsWith("Bearer ")) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
-            }
-            String username = jwtUtil.extractUsername(token.replace("Bearer ", ""));
-            if (!jwtUtil.validateToken(token.replace("Bearer ", ""))) {
+            if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
             }
-            UserDto user = userClient.getUserByUsername(username, token);
-            if (user == null) {
+            String username = claims.getUsername();
+            if (!userExistence.exists(username, token)) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
+            try {
+                workout.resolveDuration();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+            }
             workout.setUsername(username);
-            return ResponseEntity.ok(workoutRepository.save(workout));
+            return ResponseEntity.ok(workoutService.save(workout));
         } catch (Exception e) {
             System.err.println("[ERROR] Failed to add workout: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
+    // Импорт истории из других приложений: тело читается построчно, пользователь проверяется один раз
+    @PostMapping(value = "/import", consumes = {NDJSON_MEDIA_TYPE, CSV_MEDIA_TYPE})
+    public ResponseEntity<?> importWorkouts(HttpServletRequest request,
+                                            @RequestHeader("Authorization") String token,
+                                            @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        String username = claims.getUsername();
+        try {
+            if (!userExistence.exists(username, token)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+            }
+            WorkoutImporter.Format format = MediaType.parseMediaType(request.getContentType())
+                    .isCompatibleWith(MediaType.parseMediaType(CSV_MEDIA_TYPE))
+                    ? WorkoutImporter.Format.CSV : WorkoutImporter.Format.NDJSON;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+            return ResponseEntity.ok(workoutImporter.importWorkouts(reader, format, username));
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to import workouts: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
+        }
+    }
+
+    // Выгрузка всей истории ("скачать мои данные"), format=ndjson или csv: тело пишется потоком из отдельного потока MVC async,
+    // поток запроса не занят; при Accept-Encoding: gzip ответ сжимается на лету
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkouts(@RequestParam(defaultValue = "ndjson") String format,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        WorkoutImporter.Format exportFormat;
+        try {
+            exportFormat = WorkoutImporter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String username = claims.getUsername();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                workoutExporter.export(username, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                workoutExporter.export(username, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat == WorkoutImporter.Format.CSV ? CSV_MEDIA_TYPE : NDJSON_MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("workouts." + exportFormat.name().toLowerCase()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Keyset-пагинация по убыванию id; курсор следующей страницы - в заголовке X-Next-Cursor
     @GetMapping
-    public List<Workout> getMyWorkouts(@RequestHeader("Authorization") String token) {
-        String username = jwtUtil.extractUsername(token.replace("Bearer ", ""));
-        return workoutRepository.findByUsername(username);
+    public ResponseEntity<List<Workout>> getMyWorkouts(@RequestParam(required = false) Long cursor,
+                                                       @RequestParam(defaultValue = "50") int size,
+                                                       @RequestParam(required = false) String type,
+                                                       @RequestParam(required = false) Instant from,
+                                                       @RequestParam(required = false) Instant to,
+                                                       @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims,
+                                                       WebRequest webRequest) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+        String etag = etag(claims.getUsername(), webRequest);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        Specification<Workout> filter = Specification.where(WorkoutSpecifications.ofUser(claims.getUsername()))
+                .and(WorkoutSpecifications.before(cursor))
+                .and(WorkoutSpecifications.ofType(type))
+                .and(WorkoutSpecifications.createdFrom(from))
+                .and(WorkoutSpecifications.createdBefore(to));
+        List<Workout> workouts = workoutRepository.findBy(filter, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(limit)
+                .all());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+        if (workouts.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(workouts.get(workouts.size() - 1).getId()));
+        }
+        return response.body(workouts);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWorkout(@PathVariable Long id,
+                                              @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return workoutService.delete(claims.getUsername(), id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // Дельта-синхронизация: созданные, изменённые и удалённые после токена since тренировки.
+    // Токен следующего запроса - поле next ответа; 410 - токен старше хранимых tombstone, нужна полная синхронизация
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+                                        @RequestParam(defaultValue = "200") int size,
+                                        @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (since < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("since must not be negative");
+        }
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        return workoutService.changesSince(claims.getUsername(), since, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).body("Sync token expired, full resync required"));
     }
+
+    // Итоги по типам тренировок за день/неделю/месяц/год: количество и суммарная длительность
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam(defaultValue = "week") String bucket,
+                                      @RequestParam(required = false) Instant from,
+                                      @RequestParam(required = false) Instant to,
+                                      @RequestAttribute(name = JwtUtil.CLAIMS_ATTRIBUTE, required = false) VerifiedClaims claims,
+                                      WebRequest webRequest) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (!STATS_BUCKETS.contains(bucket)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("bucket must be one of " + STATS_BUCKETS);
+        }
+        // Без явного "to" окно сдвигается со временем, и одной версии данных для ETag недостаточно
+        String etag = to == null ? null : etag(claims.getUsername(), webRequest);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<WorkoutStats> stats = workoutRepository.aggregateStats(claims.getUsername(), bucket,
+                        from == null ? Instant.EPOCH : from,
+                        to == null ? Instant.now() : to).stream()
+                .map(WorkoutStats::new)
+                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag).cacheControl(CacheControl.noCache());
+        }
+        return response.body(stats);
+    }
+
+    // Сильный ETag: версия данных пользователя + параметры запроса (у разных страниц и фильтров разные теги)
+    private String etag(String username, WebRequest webRequest) {
+        long version = versionRepository.currentVersion(username);
+        return "\"" + version + "-" + Integer.toHexString(webRequest.getParameterMap().entrySet().stream()
+                .mapToInt(entry -> entry.getKey().hashCode() ^ Arrays.hashCode(entry.getValue()))
+                .sum()) + "\"";
+    }
+}
+
+class WorkoutStats {
+    private Instant bucketStart;
+    private String type;
+    private long workouts;
+    private long totalSeconds;
+
+    WorkoutStats(WorkoutStatsRow row) {
+        this.bucketStart = row.getBucketStart().toInstant(ZoneOffset.UTC);
+        this.type = row.getType();
+        this.workouts = row.getWorkouts();
+        this.totalSeconds = row.getTotalSeconds();
+    }
+
+    public Instant getBucketStart() { return bucketStart; }
+    public void setBucketStart(Instant bucketStart) { this.bucketStart = bucketStart; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public long getWorkouts() { return workouts; }
+    public void setWorkouts(long workouts) { this.workouts = workouts; }
+    public long getTotalSeconds() { return totalSeconds; }
+    public void setTotalSeconds(long totalSeconds) { this.totalSeconds = totalSeconds; }
 }
@@ -0,0 +1,93 @@
+package org.example.workoutservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+// Выгрузка всех тренировок пользователя: строки читаются курсором БД и сразу пишутся в ответ,
+// так что память не зависит от длины истории. CSV совместим с импортом (WorkoutImporter)
+@Component
+public class WorkoutExporter {
+
+    private final ObjectMapper objectMapper;
+    private final WorkoutRepository workoutRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public WorkoutExporter(ObjectMapper objectMapper, WorkoutRepository workoutRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.workoutRepository = workoutRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(String username, WorkoutImporter.Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == WorkoutImporter.Format.CSV) {
+            writer.write("id,name,type,duration,durationSeconds,createdAt\n");
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Workout> workouts = workoutRepository.streamByUsernameOrderById(username)) {
+                    workouts.forEach(workout -> {
+                        try {
+                            if (format == WorkoutImporter.Format.CSV) {
+                                writeCsv(writer, workout);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(workout));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        entityManager.detach(workout);
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsv(Writer writer, Workout workout) throws IOException {
+        writer.write(String.valueOf(workout.getId()));
+        writer.write(',');
+        writer.write(csvValue(workout.getName()));
+        writer.write(',');
+        writer.write(csvValue(workout.getType()));
+        writer.write(',');
+        writer.write(csvValue(workout.getDuration()));
+        writer.write(',');
+        writer.write(workout.getDurationSeconds() == null ? "" : workout.getDurationSeconds().toString());
+        writer.write(',');
+        writer.write(workout.getCreatedAt() == null ? "" : workout.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    // Кавычки по RFC 4180, только когда они нужны
+    static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,292 @@
+package org.example.workoutservice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Потоковый импорт тренировок из NDJSON или CSV: строки читаются по одной и сохраняются порциями
+// в отдельных транзакциях, так что память не зависит от размера файла, а ошибка в одной порции
+// не откатывает уже сохранённые. Порция, которую отвергла БД, пересохраняется построчно, чтобы
+// ошибка досталась только плохой строке. Ошибки разбора и сохранения возвращаются построчно.
+@Component
+public class WorkoutImporter {
+
+    enum Format { NDJSON, CSV }
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "type", "duration", "durationseconds", "createdat");
+    // Длина varchar у name, type и duration (V1__workouts.sql)
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final WorkoutService workoutService;
+    private final int chunkSize;
+    private final int maxRows;
+    private final int maxErrors;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public WorkoutImporter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                           WorkoutService workoutService,
+                           @Value("${workouts.import.chunk-size:1000}") int chunkSize,
+                           @Value("${workouts.import.max-rows:100000}") int maxRows,
+                           @Value("${workouts.import.max-errors:100}") int maxErrors) {
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.workoutService = workoutService;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportResult importWorkouts(BufferedReader reader, Format format, String username) throws IOException {
+        ImportResult result = new ImportResult(maxErrors);
+        List<Workout> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkLines = new ArrayList<>(chunkSize);
+        int[] columns = null;
+        int lineNumber = 0;
+        int rows = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = csvHeader(line, result, lineNumber);
+                if (columns == null) {
+                    return result;
+                }
+                continue;
+            }
+            if (++rows > maxRows) {
+                result.addError(lineNumber, "Too many rows, max " + maxRows, 1);
+                break;
+            }
+
+            Workout workout;
+            try {
+                workout = format == Format.NDJSON ? fromJson(line) : fromCsv(line, columns);
+            } catch (JsonProcessingException e) {
+                result.addError(lineNumber, "Invalid JSON: " + e.getOriginalMessage(), 1);
+                continue;
+            } catch (IllegalArgumentException e) {
+                result.addError(lineNumber, e.getMessage(), 1);
+                continue;
+            }
+            workout.setId(null);
+            workout.setUsername(username);
+            chunk.add(workout);
+            chunkLines.add(lineNumber);
+            if (chunk.size() == chunkSize) {
+                save(username, chunk, chunkLines, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(username, chunk, chunkLines, result);
+        }
+        return result;
+    }
+
+    private void save(String username, List<Workout> chunk, List<Integer> chunkLines, ImportResult result) {
+        try {
+            saveRows(username, chunk);
+            result.addImported(chunk.size());
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                result.addError(chunkLines.get(0), "Row not saved: " + e.getMessage(), 1);
+            } else {
+                saveOneByOne(username, chunk, chunkLines, result);
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void saveOneByOne(String username, List<Workout> chunk, List<Integer> chunkLines, ImportResult result) {
+        for (int i = 0; i < chunk.size(); i++) {
+            Workout workout = chunk.get(i);
+            // id из откаченной транзакции не существует: без сброса save() попытался бы обновить строку
+            workout.setId(null);
+            try {
+                saveRows(username, List.of(workout));
+                result.addImported(1);
+            } catch (Exception e) {
+                result.addError(chunkLines.get(i), "Row not saved: " + e.getMessage(), 1);
+            }
+        }
+    }
+
+    private void saveRows(String username, List<Workout> rows) {
+        transaction.executeWithoutResult(status -> {
+            workoutService.saveAll(username, rows);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private Workout fromJson(String line) throws JsonProcessingException {
+        Workout workout = objectMapper.readValue(line, Workout.class);
+        validate(workout);
+        return workout;
+    }
+
+    private Workout fromCsv(String line, int[] columns) {
+        List<String> values = parseCsvLine(line);
+        Workout workout = new Workout();
+        for (int i = 0; i < columns.length && i < values.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (columns[i]) {
+                case 0 -> workout.setName(value);
+                case 1 -> workout.setType(value);
+                case 2 -> workout.setDuration(value);
+                case 3 -> workout.setDurationSeconds(value == null ? null : parseInt(value, "durationSeconds"));
+                case 4 -> workout.setCreatedAt(value == null ? null : parseInstant(value));
+                default -> { }
+            }
+        }
+        validate(workout);
+        return workout;
+    }
+
+    private static void validate(Workout workout) {
+        checkLength("name", workout.getName());
+        checkLength("type", workout.getType());
+        checkLength("duration", workout.getDuration());
+        workout.resolveDuration();
+        if (workout.getDuration() != null && workout.getDurationSeconds() == null) {
+            throw new IllegalArgumentException("Unrecognized duration: " + workout.getDuration());
+        }
+    }
+
+    private static void checkLength(String field, String value) {
+        if (value != null && value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+    }
+
+    // Номер колонки из CSV_COLUMNS для каждой колонки файла; -1 - колонка игнорируется
+    private static int[] csvHeader(String line, ImportResult result, int lineNumber) {
+        List<String> header;
+        try {
+            header = parseCsvLine(line);
+        } catch (IllegalArgumentException e) {
+            result.addError(lineNumber, "Invalid CSV header: " + e.getMessage(), 0);
+            return null;
+        }
+        int[] columns = new int[header.size()];
+        boolean known = false;
+        for (int i = 0; i < header.size(); i++) {
+            columns[i] = CSV_COLUMNS.indexOf(header.get(i).trim().toLowerCase().replace("_", ""));
+            known |= columns[i] >= 0;
+        }
+        if (!known) {
+            result.addError(lineNumber, "CSV header must contain some of " + CSV_COLUMNS, 0);
+            return null;
+        }
+        return columns;
+    }
+
+    // Поля через запятую, кавычки по RFC 4180 ("" внутри кавычек - одна кавычка); переносы строк внутри полей не поддерживаются
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static int parseInt(String value, String field) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid createdAt: " + value);
+        }
+    }
+}
+
+class ImportResult {
+    private final int maxErrors;
+    private int imported;
+    private int failed;
+    private final List<ImportError> errors = new ArrayList<>();
+
+    ImportResult(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    void addImported(int rows) {
+        imported += rows;
+    }
+
+    // В ответ попадают только первые maxErrors ошибок, счётчик failed - полный
+    void addError(int line, String message, int rows) {
+        failed += rows;
+        if (errors.size() < maxErrors) {
+            errors.add(new ImportError(line, message));
+        }
+    }
+
+    public int getImported() { return imported; }
+    public int getFailed() { return failed; }
+    public List<ImportError> getErrors() { return errors; }
+}
+
+class ImportError {
+    private final int line;
+    private final String message;
+
+    ImportError(int line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public int getLine() { return line; }
+    public String getMessage() { return message; }
+}
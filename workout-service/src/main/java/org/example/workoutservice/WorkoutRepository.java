@@ -1,9 +1,37 @@
 package org.example.workoutservice;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface WorkoutRepository extends JpaRepository<Workout, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface WorkoutRepository extends JpaRepository<Workout, Long>, JpaSpecificationExecutor<Workout> {
     List<Workout> findByUsername(String username);
+
+    // Курсор PostgreSQL читает порциями только внутри транзакции
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select w from Workout w where w.username = :username order by w.id")
+    Stream<Workout> streamByUsernameOrderById(@Param("username") String username);
+
+    @Query(value = "select * from workouts w where w.username = :username and w.change_seq > :since "
+            + "order by w.change_seq limit :limit", nativeQuery = true)
+    List<Workout> findChangedSince(@Param("username") String username, @Param("since") long since,
+                                   @Param("limit") int limit);
+
+    // Итоги по периодам и типам одним GROUP BY; границы периодов считаются в UTC
+    @Query(value = "select date_trunc(:bucket, w.created_at at time zone 'UTC') as bucketStart, w.type as type, "
+            + "count(*) as workouts, coalesce(sum(w.duration_seconds), 0) as totalSeconds "
+            + "from workouts w where w.username = :username and w.created_at >= :from and w.created_at < :to "
+            + "group by 1, 2 order by 1, 2", nativeQuery = true)
+    List<WorkoutStatsRow> aggregateStats(@Param("username") String username, @Param("bucket") String bucket,
+                                         @Param("from") Instant from, @Param("to") Instant to);
 }
@@ -0,0 +1,127 @@
+package org.example.workoutservice;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Все записи тренировок идут через этот сервис, чтобы версия данных пользователя менялась в той же транзакции.
+// Версия повышается до записи: строка user_data_versions блокируется раньше, чем триггер выдаст change_seq,
+// поэтому изменения одного пользователя коммитятся в порядке их change_seq и клиент синхронизации
+// не пропустит запись, закоммиченную позже выданного ему токена.
+@Service
+public class WorkoutService {
+
+    static final String TOMBSTONES_PURGED_THROUGH = "workout_tombstones.purged_through";
+
+    private final WorkoutRepository workoutRepository;
+    private final UserDataVersionRepository versionRepository;
+    private final WorkoutTombstoneRepository tombstoneRepository;
+    private final SyncStateRepository syncStateRepository;
+    private final Duration tombstoneRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public WorkoutService(WorkoutRepository workoutRepository, UserDataVersionRepository versionRepository,
+                          WorkoutTombstoneRepository tombstoneRepository, SyncStateRepository syncStateRepository,
+                          @Value("${workouts.sync.tombstone-retention:90d}") Duration tombstoneRetention) {
+        this.workoutRepository = workoutRepository;
+        this.versionRepository = versionRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    // change_seq выдаёт триггер при вставке: запись перечитывается, чтобы ответ содержал его.
+    // @Generated на поле не подходит - Hibernate вставлял бы каждую строку через returning и импорт потерял бы JDBC-пакеты
+    @Transactional
+    public Workout save(Workout workout) {
+        versionRepository.bump(workout.getUsername());
+        Workout saved = workoutRepository.saveAndFlush(workout);
+        entityManager.refresh(saved);
+        return saved;
+    }
+
+    // Порция импорта одного пользователя
+    @Transactional
+    public void saveAll(String username, Iterable<Workout> workouts) {
+        versionRepository.bump(username);
+        workoutRepository.saveAll(workouts);
+    }
+
+    // false, если тренировки нет или она чужая
+    @Transactional
+    public boolean delete(String username, Long id) {
+        Optional<Workout> workout = workoutRepository.findById(id)
+                .filter(found -> username.equals(found.getUsername()));
+        if (workout.isEmpty()) {
+            return false;
+        }
+        versionRepository.bump(username);
+        workoutRepository.delete(workout.get());
+        return true;
+    }
+
+    // Изменения после токена since в порядке change_seq; since = 0 - первая синхронизация.
+    // Пустой Optional - нужные tombstone уже удалены и клиенту нужна полная синхронизация
+    @Transactional(readOnly = true)
+    public Optional<ChangesResponse<Workout>> changesSince(String username, long since, int limit) {
+        long purgedThrough = syncStateRepository.findById(TOMBSTONES_PURGED_THROUGH).map(SyncState::getValue).orElse(0L);
+        if (since > 0 && since < purgedThrough) {
+            return Optional.empty();
+        }
+        // Берём по limit + 1 из обоих источников и сливаем по change_seq
+        List<Workout> changed = workoutRepository.findChangedSince(username, since, limit + 1);
+        List<WorkoutTombstone> deleted = tombstoneRepository
+                .findByUsernameAndChangeSeqGreaterThanOrderByChangeSeqAsc(username, since, Limit.of(limit + 1));
+
+        List<Workout> pageChanged = new ArrayList<>();
+        List<Long> pageDeleted = new ArrayList<>();
+        long next = since;
+        int c = 0;
+        int d = 0;
+        while (c + d < limit && (c < changed.size() || d < deleted.size())) {
+            if (d == deleted.size() || (c < changed.size() && changed.get(c).getChangeSeq() < deleted.get(d).getChangeSeq())) {
+                Workout workout = changed.get(c++);
+                pageChanged.add(workout);
+                next = workout.getChangeSeq();
+            } else {
+                WorkoutTombstone tombstone = deleted.get(d++);
+                pageDeleted.add(tombstone.getId());
+                next = tombstone.getChangeSeq();
+            }
+        }
+        boolean hasMore = c < changed.size() || d < deleted.size();
+        return Optional.of(new ChangesResponse<>(pageChanged, pageDeleted, next, hasMore));
+    }
+
+    // Старые tombstone удаляются; запоминаем наибольший удалённый номер, чтобы отвечать 410 на более старые токены
+    @Scheduled(fixedDelayString = "${workouts.sync.purge-interval-ms:3600000}", initialDelayString = "${workouts.sync.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeTombstones() {
+        Long purgedThrough = tombstoneRepository.findMaxChangeSeqDeletedBefore(Instant.now().minus(tombstoneRetention));
+        if (purgedThrough == null) {
+            return;
+        }
+        SyncState state = syncStateRepository.findById(TOMBSTONES_PURGED_THROUGH).orElseGet(() -> {
+            SyncState created = new SyncState();
+            created.setName(TOMBSTONES_PURGED_THROUGH);
+            return created;
+        });
+        if (purgedThrough > state.getValue()) {
+            state.setValue(purgedThrough);
+            syncStateRepository.save(state);
+        }
+        tombstoneRepository.deleteUpTo(purgedThrough);
+    }
+}
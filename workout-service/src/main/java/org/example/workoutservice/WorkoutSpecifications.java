@@ -0,0 +1,33 @@
+package org.example.workoutservice;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+// Условия для выборки тренировок пользователя; null-параметр - условие не применяется
+final class WorkoutSpecifications {
+
+    private WorkoutSpecifications() {
+    }
+
+    static Specification<Workout> ofUser(String username) {
+        return (root, query, cb) -> cb.equal(root.get("username"), username);
+    }
+
+    // Keyset-курсор: id последней тренировки предыдущей страницы (порядок - по убыванию id)
+    static Specification<Workout> before(Long cursor) {
+        return cursor == null ? null : (root, query, cb) -> cb.lessThan(root.get("id"), cursor);
+    }
+
+    static Specification<Workout> ofType(String type) {
+        return type == null ? null : (root, query, cb) -> cb.equal(root.get("type"), type);
+    }
+
+    static Specification<Workout> createdFrom(Instant from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    static Specification<Workout> createdBefore(Instant to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThan(root.get("createdAt"), to);
+    }
+}
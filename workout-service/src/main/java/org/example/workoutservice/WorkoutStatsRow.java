@@ -0,0 +1,10 @@
+package org.example.workoutservice;
+
+import java.time.LocalDateTime;
+
+public interface WorkoutStatsRow {
+    LocalDateTime getBucketStart();
+    String getType();
+    long getWorkouts();
+    long getTotalSeconds();
+}
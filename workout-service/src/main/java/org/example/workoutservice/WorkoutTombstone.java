@@ -0,0 +1,35 @@
+package org.example.workoutservice;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Пишется триггером БД при удалении тренировки; приложение только читает и чистит по сроку хранения
+@Entity
+@Table(name = "workout_tombstones")
+public class WorkoutTombstone {
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private String username;
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
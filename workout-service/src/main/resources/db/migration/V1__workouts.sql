@@ -0,0 +1,8 @@
+-- Схема, которую раньше создавал Hibernate (ddl-auto=update); на существующей БД ничего не меняет
+create table if not exists workouts (
+    id       bigint generated by default as identity primary key,
+    name     varchar(255),
+    type     varchar(255),
+    duration varchar(255),
+    username varchar(255) not null
+);
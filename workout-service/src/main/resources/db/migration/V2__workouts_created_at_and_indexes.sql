@@ -0,0 +1,10 @@
+-- Время создания нужно для фильтра по датам; для старых записей оно неизвестно - берём время миграции
+alter table workouts add column if not exists created_at timestamp(6) with time zone;
+update workouts set created_at = now() where created_at is null;
+alter table workouts alter column created_at set default now();
+alter table workouts alter column created_at set not null;
+
+-- Keyset-пагинация по (username, id) и её варианты с фильтрами по типу и датам
+create index if not exists idx_workouts_username_id on workouts (username, id);
+create index if not exists idx_workouts_username_type_id on workouts (username, type, id);
+create index if not exists idx_workouts_username_created_at on workouts (username, created_at);
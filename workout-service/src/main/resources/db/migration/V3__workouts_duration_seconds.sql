@@ -0,0 +1,52 @@
+-- Длительность в секундах для агрегации в БД; исходная строка остаётся в duration.
+-- Правила разбора совпадают с DurationParser.
+alter table workouts add column if not exists duration_seconds integer;
+
+create or replace function pg_temp.parse_duration(raw text) returns integer as $$
+declare
+    value text := lower(trim(raw));
+    part text[];
+    unit integer;
+    total numeric := 0;
+begin
+    if value is null then
+        return null;
+    end if;
+    if value ~ '^\d+$' then
+        total := value::numeric * 60;
+    elsif value ~ '^\d+:\d{2}$' then
+        part := regexp_match(value, '^(\d+):(\d{2})$');
+        total := part[1]::numeric * 60 + part[2]::numeric;
+    elsif value ~ '^\d+:\d{2}:\d{2}$' then
+        part := regexp_match(value, '^(\d+):(\d{2}):(\d{2})$');
+        total := part[1]::numeric * 3600 + part[2]::numeric * 60 + part[3]::numeric;
+    elsif value !~ '^(\s*\d+([.,]\d+)?\s*[a-zа-яё]+\.?)+\s*$' then
+        return null;
+    else
+        for part in select regexp_matches(value, '(\d+(?:[.,]\d+)?)\s*([a-zа-яё]+)', 'g') loop
+            unit := case
+                when part[2] in ('h', 'hr', 'hrs', 'hour', 'hours', 'ч', 'час', 'часа', 'часов') then 3600
+                when part[2] in ('m', 'min', 'mins', 'minute', 'minutes', 'м', 'мин', 'минута', 'минуты', 'минут') then 60
+                when part[2] in ('s', 'sec', 'secs', 'second', 'seconds', 'с', 'сек', 'секунда', 'секунды', 'секунд') then 1
+            end;
+            if unit is null then
+                return null;
+            end if;
+            total := total + replace(part[1], ',', '.')::numeric * unit;
+        end loop;
+    end if;
+    if total > 2147483647 then
+        return null;
+    end if;
+    return round(total);
+end;
+$$ language plpgsql;
+
+update workouts
+set duration_seconds = pg_temp.parse_duration(duration)
+where duration is not null and duration_seconds is null;
+
+-- Агрегаты по типу и периоду для /api/workouts/stats берут длительность прямо из индекса
+create index if not exists idx_workouts_username_created_at_stats
+    on workouts (username, created_at) include (type, duration_seconds);
+drop index if exists idx_workouts_username_created_at;
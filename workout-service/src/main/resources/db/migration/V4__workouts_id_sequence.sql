@@ -0,0 +1,7 @@
+-- IDENTITY не даёт Hibernate группировать вставки в JDBC-пакеты: id нужен сразу после каждого INSERT.
+-- Переходим на отдельную последовательность с шагом 50 (pooled-оптимизатор в Workout выдаёт id блоками).
+alter table workouts alter column id drop identity if exists;
+
+create sequence if not exists workouts_seq increment by 50;
+-- pooled трактует значение последовательности как верхнюю границу блока: следующий блок - max(id)+1 .. max(id)+50
+select setval('workouts_seq', coalesce(max(id), 0) + 50, false) from workouts;
@@ -0,0 +1,50 @@
+-- Последовательность изменений для синхронизации клиентов: каждое INSERT/UPDATE/DELETE получает новый номер.
+-- Номер выдаёт триггер, поэтому его нельзя забыть ни в одном пути записи, включая пакетный импорт.
+create sequence if not exists change_seq;
+
+alter table workouts add column if not exists change_seq bigint;
+update workouts set change_seq = nextval('change_seq') where change_seq is null;
+alter table workouts alter column change_seq set not null;
+create index if not exists idx_workouts_username_change_seq on workouts (username, change_seq);
+
+create or replace function workouts_set_change_seq() returns trigger as $$
+begin
+    new.change_seq := nextval('change_seq');
+    return new;
+end;
+$$ language plpgsql;
+
+drop trigger if exists workouts_change_seq on workouts;
+create trigger workouts_change_seq
+    before insert or update on workouts
+    for each row execute function workouts_set_change_seq();
+
+-- Удалённые тренировки: клиент узнаёт об удалении по tombstone с тем же счётчиком
+create table if not exists workout_tombstones (
+    id         bigint primary key,
+    username   varchar(255) not null,
+    change_seq bigint not null,
+    deleted_at timestamp(6) with time zone not null default now()
+);
+create index if not exists idx_workout_tombstones_username_change_seq on workout_tombstones (username, change_seq);
+create index if not exists idx_workout_tombstones_deleted_at on workout_tombstones (deleted_at);
+
+create or replace function workouts_write_tombstone() returns trigger as $$
+begin
+    insert into workout_tombstones (id, username, change_seq)
+    values (old.id, old.username, nextval('change_seq'))
+    on conflict (id) do nothing;
+    return old;
+end;
+$$ language plpgsql;
+
+drop trigger if exists workouts_tombstone on workouts;
+create trigger workouts_tombstone
+    after delete on workouts
+    for each row execute function workouts_write_tombstone();
+
+-- Граница удалённых по сроку хранения tombstone: клиенту со старым токеном нужна полная синхронизация
+create table if not exists sync_state (
+    name  varchar(64) primary key,
+    value bigint not null
+);
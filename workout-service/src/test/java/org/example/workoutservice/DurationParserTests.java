@@ -0,0 +1,33 @@
+package org.example.workoutservice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationParserTests {
+
+    @Test
+    void parsesSupportedFormats() {
+        assertEquals(2700, DurationParser.parseSeconds("45"));
+        assertEquals(2730, DurationParser.parseSeconds("45:30"));
+        assertEquals(3900, DurationParser.parseSeconds("1:05:00"));
+        assertEquals(5400, DurationParser.parseSeconds("1h 30m"));
+        assertEquals(5400, DurationParser.parseSeconds(" 90 Min "));
+        assertEquals(5400, DurationParser.parseSeconds("1,5 ч"));
+        assertEquals(1230, DurationParser.parseSeconds("20 мин 30 сек"));
+    }
+
+    @Test
+    void returnsNullForUnparseable() {
+        assertNull(DurationParser.parseSeconds(null));
+        assertNull(DurationParser.parseSeconds("about an hour"));
+        assertNull(DurationParser.parseSeconds("10 laps"));
+        assertNull(DurationParser.parseSeconds(""));
+    }
+
+    @Test
+    void formatsSeconds() {
+        assertEquals("45:30", DurationParser.format(2730));
+        assertEquals("1:05:00", DurationParser.format(3900));
+    }
+}
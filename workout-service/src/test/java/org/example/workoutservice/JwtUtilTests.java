@@ -0,0 +1,32 @@
+package org.example.workoutservice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "supersecurekey123456789012345678901234567890123456789012345678901234";
+
+    @Test
+    void verifyReturnsClaimsForValidToken() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60000, 100);
+        String token = jwtUtil.generateToken("athlete");
+
+        VerifiedClaims claims = jwtUtil.verify(token);
+
+        assertNotNull(claims);
+        assertEquals("athlete", claims.getUsername());
+        assertSame(claims, jwtUtil.verify(token));
+    }
+
+    @Test
+    void verifyRejectsTamperedAndExpiredTokens() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60000, 100);
+        String token = jwtUtil.generateToken("athlete");
+
+        assertNull(jwtUtil.verify(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtUtil.verify("not-a-token"));
+        assertNull(new JwtUtil(SECRET, -1000, 100).verify(new JwtUtil(SECRET, -1000, 100).generateToken("athlete")));
+    }
+}
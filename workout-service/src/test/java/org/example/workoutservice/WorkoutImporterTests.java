@@ -0,0 +1,152 @@
+package org.example.workoutservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkoutImporterTests {
+
+    // Сохранённые строки; порция с именем "reject" падает целиком, как при ошибке БД
+    private final List<Workout> saved = new ArrayList<>();
+    private final List<Integer> batches = new ArrayList<>();
+
+    private final WorkoutService workoutService = new WorkoutService(null, null, null, null, Duration.ZERO) {
+        @Override
+        public void saveAll(String username, Iterable<Workout> workouts) {
+            List<Workout> batch = new ArrayList<>();
+            workouts.forEach(batch::add);
+            batches.add(batch.size());
+            if (batch.stream().anyMatch(workout -> "reject".equals(workout.getName()))) {
+                throw new DataIntegrityViolationException("value violates constraint");
+            }
+            saved.addAll(batch);
+        }
+    };
+
+    private final PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    private WorkoutImporter importer;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        importer = new WorkoutImporter(new ObjectMapper().registerModule(new JavaTimeModule()), transactionManager,
+                workoutService, 3, 100, 10);
+        EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> null);
+        Field field = WorkoutImporter.class.getDeclaredField("entityManager");
+        field.setAccessible(true);
+        field.set(importer, entityManager);
+    }
+
+    @Test
+    void parsesQuotedCsvFields() {
+        assertEquals(List.of("Run", "", "45"), WorkoutImporter.parseCsvLine("Run,,45"));
+        assertEquals(List.of("Morning, easy", "say \"hi\"", ""), WorkoutImporter.parseCsvLine("\"Morning, easy\",\"say \"\"hi\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> WorkoutImporter.parseCsvLine("\"Run,45"));
+    }
+
+    @Test
+    void mapsCsvHeaderAndIgnoresUnknownColumns() throws IOException {
+        ImportResult result = importCsv(
+                "Duration_Seconds,notes,NAME,created_at",
+                "1800,ignored,Run,2024-05-01T07:00:00Z");
+
+        assertEquals(1, result.getImported());
+        Workout workout = saved.get(0);
+        assertEquals("Run", workout.getName());
+        assertEquals(1800, workout.getDurationSeconds());
+        assertEquals("30:00", workout.getDuration());
+        assertEquals(Instant.parse("2024-05-01T07:00:00Z"), workout.getCreatedAt());
+        assertEquals("user1", workout.getUsername());
+    }
+
+    @Test
+    void rejectsHeaderWithoutKnownColumns() throws IOException {
+        ImportResult result = importCsv("foo,bar", "1,2");
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getErrors().get(0).getLine());
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    void invalidRowsAreReportedWithoutFailingTheChunk() throws IOException {
+        ImportResult result = importCsv(
+                "name,duration,durationSeconds",
+                "Run,45,",
+                "x".repeat(256) + ",10,",
+                "Swim,45,60",
+                "Bike,about an hour,",
+                "Row,20,1200");
+
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(3, 4, 5), result.getErrors().stream().map(ImportError::getLine).toList());
+        assertEquals(List.of(2), batches);
+    }
+
+    @Test
+    void chunkRejectedByDatabaseIsRetriedRowByRow() throws IOException {
+        ImportResult result = importCsv(
+                "name,duration",
+                "Run,45",
+                "reject,30",
+                "Swim,20",
+                "Bike,60");
+
+        assertEquals(3, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals(List.of("Run", "Swim", "Bike"), saved.stream().map(Workout::getName).toList());
+        assertEquals(List.of(3, 1, 1, 1, 1), batches);
+    }
+
+    @Test
+    void importsNdjsonWithDurationAsSourceOfTruth() throws IOException {
+        ImportResult result = importer.importWorkouts(new BufferedReader(new StringReader(
+                "{\"durationSeconds\":60,\"duration\":\"45\",\"name\":\"Run\"}\n"
+                        + "{\"duration\":\"45\",\"durationSeconds\":2700,\"name\":\"Swim\"}\n"
+                        + "{\"name\":\"Bike\"\n")), WorkoutImporter.Format.NDJSON, "user1");
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(1, 3), result.getErrors().stream().map(ImportError::getLine).toList());
+        assertEquals(2700, saved.get(0).getDurationSeconds());
+    }
+
+    private ImportResult importCsv(String... lines) throws IOException {
+        return importer.importWorkouts(new BufferedReader(new StringReader(String.join("\n", lines))),
+                WorkoutImporter.Format.CSV, "user1");
+    }
+}